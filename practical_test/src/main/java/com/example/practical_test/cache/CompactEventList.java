@@ -0,0 +1,178 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.EventType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of events stored column by column in primitive arrays
+ * (about 37 bytes per event instead of roughly 204 for an EventResponse with
+ * its boxed ids, LocalDateTime and category string), with event types stored as
+ * their ordinal and categories coded by an {@link EventDictionary}. get() builds the EventResponse on
+ * demand, so DTOs only exist while a result is being serialized. Categories the
+ * dictionary has no room for are kept as Strings in a column allocated only then.
+ */
+public final class CompactEventList extends AbstractList<EventResponse> implements RandomAccess {
+    private final EventDictionary dictionary;
+    private final long[] ids;
+    private final long[] userIds;
+    private final long[] timestamps;
+    private final long[] productIds;
+    private final byte[] types;
+    private final int[] categories;
+    // Categories of UNCODED rows, null while there are none
+    private final String[] uncoded;
+    private final int size;
+
+    private CompactEventList(Builder builder) {
+        this.dictionary = builder.dictionary;
+        this.size = builder.size;
+        // Exactly sized columns are taken over, others trimmed
+        boolean exact = size == builder.ids.length;
+        this.ids = exact ? builder.ids : Arrays.copyOf(builder.ids, size);
+        this.userIds = exact ? builder.userIds : Arrays.copyOf(builder.userIds, size);
+        this.timestamps = exact ? builder.timestamps : Arrays.copyOf(builder.timestamps, size);
+        this.productIds = exact ? builder.productIds : Arrays.copyOf(builder.productIds, size);
+        this.types = exact ? builder.types : Arrays.copyOf(builder.types, size);
+        this.categories = exact ? builder.categories : Arrays.copyOf(builder.categories, size);
+        this.uncoded = builder.uncoded == null || exact ? builder.uncoded : Arrays.copyOf(builder.uncoded, size);
+    }
+
+    /**
+     * Compact copy of a list, or the list itself when it is compact already
+     */
+    public static CompactEventList of(EventDictionary dictionary, List<EventResponse> events) {
+        if (events instanceof CompactEventList compact && compact.dictionary == dictionary) {
+            return compact;
+        }
+        Builder builder = new Builder(dictionary, events.size());
+        for (EventResponse event : events) {
+            builder.add(event);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public EventResponse get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new EventResponse(EventDictionary.decode(ids[index]), EventDictionary.decode(userIds[index]),
+                EventType.of(types[index]), EventDictionary.decode(productIds[index]),
+                category(index), EventDictionary.fromEpochMicros(timestamps[index]));
+    }
+
+    private String category(int index) {
+        return dictionary.category(categories[index], uncoded != null ? uncoded[index] : null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Position in {@link EventSearchCache#RESULT_ORDER} (timestamp desc, id desc)
+     * of the event at index relative to another event, without building it
+     */
+    int compareTo(int index, EventResponse other) {
+        int order = Long.compare(EventDictionary.toEpochMicros(other.getTimestamp()), timestamps[index]);
+        return order != 0 ? order : Long.compare(other.getId(), ids[index]);
+    }
+
+    /**
+     * Collects events for a CompactEventList, copying columns of compact lists directly
+     */
+    public static final class Builder {
+        private final EventDictionary dictionary;
+        private long[] ids;
+        private long[] userIds;
+        private long[] timestamps;
+        private long[] productIds;
+        private byte[] types;
+        private int[] categories;
+        private String[] uncoded;
+        private int size;
+
+        public Builder(EventDictionary dictionary, int expectedSize) {
+            int capacity = Math.max(expectedSize, 0);
+            this.dictionary = dictionary;
+            this.ids = new long[capacity];
+            this.userIds = new long[capacity];
+            this.timestamps = new long[capacity];
+            this.productIds = new long[capacity];
+            this.types = new byte[capacity];
+            this.categories = new int[capacity];
+        }
+
+        public Builder add(EventResponse event) {
+            ensureCapacity();
+            ids[size] = EventDictionary.encode(event.getId());
+            userIds[size] = EventDictionary.encode(event.getUserId());
+            timestamps[size] = EventDictionary.toEpochMicros(event.getTimestamp());
+            productIds[size] = EventDictionary.encode(event.getProductId());
+            types[size] = (byte) event.getEventType().ordinal();
+            categories[size] = dictionary.categoryCode(event.getCategory());
+            if (categories[size] == EventDictionary.UNCODED) {
+                uncoded()[size] = event.getCategory();
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Add the event at index of a compact list built with the same dictionary
+         */
+        public Builder add(CompactEventList source, int index) {
+            ensureCapacity();
+            ids[size] = source.ids[index];
+            userIds[size] = source.userIds[index];
+            timestamps[size] = source.timestamps[index];
+            productIds[size] = source.productIds[index];
+            types[size] = source.types[index];
+            categories[size] = source.categories[index];
+            if (source.categories[index] == EventDictionary.UNCODED) {
+                uncoded()[size] = source.uncoded[index];
+            }
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * The list of the added events; the builder must not be used afterwards
+         */
+        public CompactEventList build() {
+            return new CompactEventList(this);
+        }
+
+        private String[] uncoded() {
+            if (uncoded == null) {
+                uncoded = new String[ids.length];
+            }
+            return uncoded;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                int capacity = Math.max(size * 2, 8);
+                ids = Arrays.copyOf(ids, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                types = Arrays.copyOf(types, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                if (uncoded != null) {
+                    uncoded = Arrays.copyOf(uncoded, capacity);
+                }
+            }
+        }
+    }
+}
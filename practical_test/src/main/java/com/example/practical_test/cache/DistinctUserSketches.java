@@ -0,0 +1,133 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * HyperLogLog sketches of the users seen per (eventType, category, day)
+ * Sketches for days before the retention period are dropped. Sketches start
+ * sparse, so the many (eventType, category, day) keys with few users take a
+ * few bytes each rather than 2^precision. A sketch is
+ * marked dirty whenever a register rises, so a persistent store only has to
+ * write the sketches that changed since its last flush.
+ */
+public class DistinctUserSketches {
+    private final int precision;
+    private final int retentionDays;
+    private final Map<SketchKey, Sketch> sketches = new ConcurrentHashMap<>();
+    private volatile LocalDate oldestDay = LocalDate.MIN;
+
+    /**
+     * @param retentionDays days kept in memory, 0 for all
+     */
+    public DistinctUserSketches(int precision, int retentionDays) {
+        this.precision = precision;
+        this.retentionDays = retentionDays;
+    }
+
+    public void add(Event event) {
+        LocalDate day = event.getTimestamp().toLocalDate();
+        if (day.isBefore(oldestDay)) {
+            return;
+        }
+        Sketch sketch = sketches.computeIfAbsent(new SketchKey(event.getEventType(), event.getCategory(), day),
+                key -> new Sketch(new HyperLogLog(precision)));
+        if (sketch.users.add(event.getUserId())) {
+            sketch.dirty = true;
+        }
+    }
+
+    /**
+     * Merge all sketches of another instance, e.g. staged during a bulk load
+     */
+    public void addAll(DistinctUserSketches other) {
+        other.sketches.forEach((key, source) -> {
+            if (!key.day().isBefore(oldestDay)) {
+                Sketch sketch = sketches.computeIfAbsent(key, k -> new Sketch(new HyperLogLog(precision)));
+                if (sketch.users.merge(source.users)) {
+                    sketch.dirty = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Merge the sketches of one day into target
+     * @param eventType event type to include, or null for all
+     * @param category category to include, or null for all
+     */
+    public void mergeInto(HyperLogLog target, EventType eventType, String category, LocalDate day) {
+        sketches.forEach((key, sketch) -> {
+            if (key.matches(eventType, category, day)) {
+                target.merge(sketch.users);
+            }
+        });
+    }
+
+    /**
+     * Pass every sketch changed since the previous call to the action
+     * The dirty mark is cleared before the action reads the sketch, so
+     * changes made meanwhile are seen again by the next call.
+     */
+    public void forEachChanged(BiConsumer<SketchKey, HyperLogLog> action) {
+        sketches.forEach((key, sketch) -> {
+            if (sketch.dirty) {
+                sketch.dirty = false;
+                action.accept(key, sketch.users);
+            }
+        });
+    }
+
+    /**
+     * Mark a sketch as changed again, e.g. after it failed to be stored
+     */
+    public void markChanged(SketchKey key) {
+        Sketch sketch = sketches.get(key);
+        if (sketch != null) {
+            sketch.dirty = true;
+        }
+    }
+
+    /**
+     * Drop the sketches of days before the retention period
+     */
+    public void expire(LocalDate today) {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate oldest = today.minusDays(retentionDays - 1L);
+        oldestDay = oldest;
+        sketches.keySet().removeIf(key -> key.day().isBefore(oldest));
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public int size() {
+        return sketches.size();
+    }
+
+    public record SketchKey(EventType eventType, String category, LocalDate day) {
+        private boolean matches(EventType eventType, String category, LocalDate day) {
+            return this.day.equals(day)
+                    && (eventType == null || eventType == this.eventType)
+                    && (category == null || Objects.equals(category, this.category));
+        }
+    }
+
+    private static final class Sketch {
+        private final HyperLogLog users;
+        private volatile boolean dirty;
+
+        private Sketch(HyperLogLog users) {
+            this.users = users;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.model.EventType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent event counts keyed by (category, eventType)
+ * Each category owns a row of counters indexed by event type ordinal,
+ * plus one row of LongAdders for all categories, so reading a summary costs
+ * O(#types). Categories are free-form, so a category's row is removed as
+ * soon as all its counts are back to zero: a table that counts events out
+ * again (the recent-events window) only holds the categories it currently
+ * counts. A row is updated and removed atomically under its map entry, so no
+ * count is lost to a row being removed.
+ */
+public class EventCounterTable {
+    private final LongAdder[] totals = newRow();
+    private final Map<String, AtomicLongArray> byCategory = new ConcurrentHashMap<>();
+    
+    public void increment(String category, EventType eventType) {
+        add(category, eventType, 1);
+    }
+    
+    public void decrement(String category, EventType eventType) {
+        add(category, eventType, -1);
+    }
+    
+    /**
+     * Add all counts of another table
+     */
+    public void addAll(EventCounterTable other) {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i].add(other.totals[i].sum());
+        }
+        for (Map.Entry<String, AtomicLongArray> entry : other.byCategory.entrySet()) {
+            AtomicLongArray source = entry.getValue();
+            byCategory.compute(entry.getKey(), (key, row) -> {
+                row = row != null ? row : new AtomicLongArray(EventType.count());
+                for (int i = 0; i < row.length(); i++) {
+                    row.addAndGet(i, source.get(i));
+                }
+                return isZero(row) ? null : row;
+            });
+        }
+    }
+    
+    /**
+     * Get non-zero counts per event type
+     * @param category category to read, or null for all categories
+     */
+    public Map<EventType, Long> counts(String category) {
+        long[] sums = new long[EventType.count()];
+        sumInto(category, sums);
+        Map<EventType, Long> result = new EnumMap<>(EventType.class);
+        for (int i = 0; i < sums.length; i++) {
+            if (sums[i] > 0) {
+                result.put(EventType.of(i), sums[i]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Add counts per event type ordinal into the given array without allocating
+     * @param category category to read, or null for all categories
+     */
+    public void sumInto(String category, long[] sums) {
+        if (category == null) {
+            for (int i = 0; i < totals.length; i++) {
+                sums[i] += totals[i].sum();
+            }
+            return;
+        }
+        AtomicLongArray row = byCategory.get(category);
+        if (row != null) {
+            for (int i = 0; i < row.length(); i++) {
+                sums[i] += row.get(i);
+            }
+        }
+    }
+    
+    /**
+     * Number of categories with a non-zero count
+     */
+    public int categoryCount() {
+        return byCategory.size();
+    }
+    
+    private void add(String category, EventType eventType, long delta) {
+        int index = eventType.ordinal();
+        totals[index].add(delta);
+        if (category != null) {
+            byCategory.compute(category, (key, row) -> {
+                row = row != null ? row : new AtomicLongArray(EventType.count());
+                row.addAndGet(index, delta);
+                return isZero(row) ? null : row;
+            });
+        }
+    }
+    
+    private static boolean isZero(AtomicLongArray row) {
+        for (int i = 0; i < row.length(); i++) {
+            if (row.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static LongAdder[] newRow() {
+        LongAdder[] row = new LongAdder[EventType.count()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = new LongAdder();
+        }
+        return row;
+    }
+}
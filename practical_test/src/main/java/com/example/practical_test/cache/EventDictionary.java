@@ -0,0 +1,118 @@
+package com.example.practical_test.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Codes for the values that repeat across in-memory events, so compact
+ * structures store an int instead of a String per event: categories are
+ * interned on first use and a code is never reused. Categories are free-form,
+ * so at most maxCategories get a code; later ones are {@link #UNCODED} and the
+ * structures keep their String instead. Event types are stored as their
+ * ordinal byte. Also the epoch-micros encoding of timestamps. One instance is
+ * shared by all structures of a service.
+ */
+public class EventDictionary {
+    // Code of a missing category, and of a filter value that no event has
+    public static final int NO_CATEGORY = -1;
+    public static final int UNKNOWN = -2;
+    // Code of a category that came after the dictionary was full: the String is stored instead
+    public static final int UNCODED = -3;
+    public static final int DEFAULT_MAX_CATEGORIES = 10_000;
+    // Stand-in for a null id, user id or product id in a long column
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final Map<String, Integer> categoryCodes = new ConcurrentHashMap<>();
+    private final List<String> categoryNames = new CopyOnWriteArrayList<>();
+    private final int maxCategories;
+
+    public EventDictionary() {
+        this(DEFAULT_MAX_CATEGORIES);
+    }
+
+    public EventDictionary(int maxCategories) {
+        this.maxCategories = maxCategories;
+    }
+
+    /**
+     * Code of a category, assigned on first use, or UNCODED once the dictionary is full
+     */
+    public int categoryCode(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer code = categoryCodes.get(category);
+        if (code != null) {
+            return code;
+        }
+        synchronized (categoryNames) {
+            if (categoryNames.size() >= maxCategories) {
+                return categoryCodes.getOrDefault(category, UNCODED);
+            }
+            return categoryCodes.computeIfAbsent(category, c -> {
+                categoryNames.add(c);
+                return categoryNames.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Code of a category to filter on, without assigning one: UNKNOWN if no event
+     * has it, UNCODED if events may have it stored as a String
+     */
+    public int findCategoryCode(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer code = categoryCodes.get(category);
+        if (code != null) {
+            return code;
+        }
+        // Once full, the dictionary stays full: a category without a code is never given one
+        return categoryNames.size() >= maxCategories ? UNCODED : UNKNOWN;
+    }
+
+    /**
+     * Category of a code
+     * @param uncoded the category stored beside an UNCODED code
+     */
+    public String category(int code, String uncoded) {
+        return code == UNCODED ? uncoded : category(code);
+    }
+
+    public String category(int code) {
+        return code == NO_CATEGORY ? null : categoryNames.get(code);
+    }
+
+    /**
+     * The category to store beside a code: the category itself if it is UNCODED, else null
+     */
+    public static String uncoded(int code, String category) {
+        return code == UNCODED ? category : null;
+    }
+
+    public int size() {
+        return categoryNames.size();
+    }
+
+    public static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public static long encode(Long value) {
+        return value != null ? value : NO_VALUE;
+    }
+
+    public static Long decode(long value) {
+        return value != NO_VALUE ? value : null;
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.CacheStatsResponse;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of event search results that stays correct under writes
+ * A new event is spliced into every cached result list it matches, at its
+ * (timestamp desc, id desc) position, instead of evicting the entry. Loads
+ * that are running while events are written pick those events up before
+ * their result is cached. Concurrent misses on the same key share a single
+ * load.
+ * Memory is bounded by weight, one unit per cached row, rather than by the
+ * number of searches; a single result larger than the per-entry limit is
+ * returned but never cached. Results are cached as CompactEventLists, column
+ * arrays that build each EventResponse only when it is read, and are handed
+ * out without copying. Hits, misses, puts, evictions, invalidations and load
+ * time are counted with striped LongAdders, cheap enough for the read path.
+ */
+public class EventSearchCache {
+    // Same order as EventRepositoryImpl.findEventsWithFilters
+    public static final Comparator<EventResponse> RESULT_ORDER =
+            Comparator.comparing(EventResponse::getTimestamp, Comparator.reverseOrder())
+                    .thenComparing(EventResponse::getId, Comparator.reverseOrder());
+
+    private final EventSearchKeyIndex keyIndex = new EventSearchKeyIndex();
+    private final TinyLfuCache<EventSearchKey, CompactEventList> cache;
+    private final Set<PendingLoad> pendingLoads = ConcurrentHashMap.newKeySet();
+    private final Map<EventSearchKey, CompletableFuture<List<EventResponse>>> inFlightLoads = new ConcurrentHashMap<>();
+    // Serializes load registration with the removal of index entries
+    private final Object registrationLock = new Object();
+    private final EventDictionary dictionary;
+    private final Function<Event, EventResponse> toResponse;
+    private final int maxSize;
+    private final long maxWeight;
+    private final int maxEntryWeight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder deduplicatedLoadCount = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of cached searches
+     * @param maxWeight maximum number of rows over all cached searches
+     * @param maxEntryWeight maximum number of rows of a single cached search
+     */
+    public EventSearchCache(int maxSize, long maxWeight, int maxEntryWeight, EventDictionary dictionary,
+                            Function<Event, EventResponse> toResponse) {
+        this.cache = new TinyLfuCache<>(maxSize, maxWeight, (key, value) -> weigh(value),
+                (key, value) -> {
+                    evictionCount.increment();
+                    removeStaleIndexEntry(key);
+                });
+        this.dictionary = dictionary;
+        this.toResponse = toResponse;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.maxEntryWeight = maxEntryWeight;
+    }
+
+    public List<EventResponse> get(EventSearchKey key) {
+        List<EventResponse> cached = cache.get(key);
+        if (cached != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Run a database load for a missed key and cache its result, including
+     * any matching events committed while the load was running. Callers that
+     * miss while a load for the same key is in flight wait for its result
+     * instead of querying again.
+     */
+    public List<EventResponse> load(EventSearchKey key, Supplier<List<EventResponse>> loader) {
+        CompletableFuture<List<EventResponse>> load = new CompletableFuture<>();
+        CompletableFuture<List<EventResponse>> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            deduplicatedLoadCount.increment();
+            return await(inFlight);
+        }
+        try {
+            // The previous load for this key may have completed since our miss
+            List<EventResponse> cached = cache.get(key);
+            List<EventResponse> result = cached != null ? cached : loadAndCache(key, loader);
+            load.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    private List<EventResponse> loadAndCache(EventSearchKey key, Supplier<List<EventResponse>> loader) {
+        PendingLoad pending = new PendingLoad(key);
+        // Indexed and registered before querying, so no concurrent write can be missed
+        synchronized (registrationLock) {
+            keyIndex.add(key);
+            pendingLoads.add(pending);
+        }
+        boolean cached = false;
+        try {
+            long start = System.nanoTime();
+            List<EventResponse> loaded = loader.get();
+            totalLoadNanos.add(System.nanoTime() - start);
+            loadCount.increment();
+            synchronized (pending) {
+                CompactEventList result = merge(CompactEventList.of(dictionary, loaded), pending.events, key.getMaxRows());
+                pending.closed = true;
+                if (!pending.discarded && result.size() <= maxEntryWeight) {
+                    cache.put(key, result);
+                    putCount.increment();
+                    cached = true;
+                }
+                return result;
+            }
+        } finally {
+            pendingLoads.remove(pending);
+            if (!cached) {
+                removeStaleIndexEntry(key);
+            }
+        }
+    }
+
+    private static List<EventResponse> await(CompletableFuture<List<EventResponse>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            // Rethrow the failure of the shared load as it was thrown there
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splice committed events into the cached results they match
+     */
+    public void apply(List<Event> events) {
+        Map<EventSearchKey, List<EventResponse>> additions = new HashMap<>();
+        for (Event event : events) {
+            EventResponse response = toResponse.apply(event);
+            for (PendingLoad pending : pendingLoads) {
+                if (pending.key.matches(event)) {
+                    pending.add(response);
+                }
+            }
+            for (EventSearchKey key : keyIndex.matching(event)) {
+                additions.computeIfAbsent(key, k -> new ArrayList<>()).add(response);
+            }
+        }
+
+        for (Map.Entry<EventSearchKey, List<EventResponse>> entry : additions.entrySet()) {
+            List<EventResponse> added = entry.getValue();
+            added.sort(RESULT_ORDER);
+            boolean[] dropped = new boolean[1];
+            CompactEventList spliced = cache.computeIfPresent(entry.getKey(), (key, cached) -> {
+                CompactEventList merged = spliced(cached, added, key.getMaxRows());
+                dropped[0] = merged == null;
+                return merged;
+            });
+            if (dropped[0]) {
+                invalidationCount.increment();
+            }
+            if (spliced == null) {
+                // Evicted in the meantime or grown past the per-entry limit
+                removeStaleIndexEntry(entry.getKey());
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (registrationLock) {
+            // Loads already querying may have missed what made the cache stale: serve them, but do not cache them
+            for (PendingLoad pending : pendingLoads) {
+                pending.discard();
+            }
+            invalidationCount.add(cache.size());
+            cache.clear();
+            keyIndex.clear();
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Number of rows held over all cached searches
+     */
+    public long weight() {
+        return cache.weightedSize();
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Counters since startup, with the current size and weight
+     */
+    public CacheStatsResponse stats() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        long loads = loadCount.sum();
+        CacheStatsResponse stats = new CacheStatsResponse(size(), maxSize, weight(), maxWeight, null);
+        stats.setHitCount(hits);
+        stats.setMissCount(lookups - hits);
+        stats.setHitRatio(lookups == 0 ? 0.0 : hits / (double) lookups);
+        stats.setPutCount(putCount.sum());
+        stats.setEvictionCount(evictionCount.sum());
+        stats.setInvalidationCount(invalidationCount.sum());
+        stats.setDeduplicatedLoadCount(deduplicatedLoadCount.sum());
+        stats.setAverageLoadPenaltyMillis(loads == 0 ? 0.0 : totalLoadNanos.sum() / (double) loads / 1_000_000.0);
+        return stats;
+    }
+
+    private CompactEventList spliced(CompactEventList cached, List<EventResponse> added, int maxRows) {
+        CompactEventList merged = merge(cached, added, maxRows);
+        if (merged == cached) {
+            return cached;
+        }
+        return merged.size() <= maxEntryWeight ? merged : null;
+    }
+
+    private void removeStaleIndexEntry(EventSearchKey key) {
+        synchronized (registrationLock) {
+            if (!cache.containsKey(key) && !isLoading(key)) {
+                keyIndex.remove(key);
+            }
+        }
+    }
+
+    private static int weigh(List<EventResponse> results) {
+        // Empty results still take an entry
+        return Math.max(1, results.size());
+    }
+
+    private boolean isLoading(EventSearchKey key) {
+        for (PendingLoad pending : pendingLoads) {
+            if (pending.key.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge two lists sorted by RESULT_ORDER, dropping events present in both
+     * and keeping only the first maxRows (all when 0), as a limited search would.
+     * Cached events are copied column by column, never built as EventResponses.
+     */
+    private CompactEventList merge(CompactEventList cached, List<EventResponse> added, int maxRows) {
+        if (added.isEmpty()) {
+            return cached;
+        }
+        int limit = maxRows > 0 ? maxRows : Integer.MAX_VALUE;
+        CompactEventList.Builder merged = new CompactEventList.Builder(dictionary,
+                Math.min(limit, cached.size() + added.size()));
+        int i = 0;
+        int j = 0;
+        while ((i < cached.size() || j < added.size()) && merged.size() < limit) {
+            if (j == added.size()) {
+                merged.add(cached, i++);
+            } else if (i == cached.size()) {
+                merged.add(added.get(j++));
+            } else {
+                int order = cached.compareTo(i, added.get(j));
+                if (order < 0) {
+                    merged.add(cached, i++);
+                } else if (order > 0) {
+                    merged.add(added.get(j++));
+                } else {
+                    // Already part of the cached result
+                    merged.add(cached, i++);
+                    j++;
+                }
+            }
+        }
+        return merged.build();
+    }
+
+    private static final class PendingLoad {
+        private final EventSearchKey key;
+        private final List<EventResponse> events = new ArrayList<>();
+        private boolean closed;
+        private boolean discarded;
+
+        private PendingLoad(EventSearchKey key) {
+            this.key = key;
+        }
+
+        private synchronized void discard() {
+            discarded = true;
+        }
+
+        private synchronized void add(EventResponse event) {
+            if (!closed) {
+                int position = 0;
+                while (position < events.size() && RESULT_ORDER.compare(events.get(position), event) < 0) {
+                    position++;
+                }
+                events.add(position, event);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Secondary index from filter values to the cached search keys using them
+ * For a new event only the keys filtering on the event's own value (or not
+ * filtering on that field at all) are considered, using whichever of the
+ * userId/eventType/category/productId fields yields the fewest candidates.
+ */
+public class EventSearchKeyIndex {
+    private final List<Dimension<?>> dimensions = List.of(
+        new Dimension<>(EventSearchKey::getUserId, Event::getUserId),
+        new Dimension<>(EventSearchKey::getEventType, Event::getEventType),
+        new Dimension<>(key -> emptyToNull(key.getCategory()), Event::getCategory),
+        new Dimension<>(EventSearchKey::getProductId, Event::getProductId)
+    );
+    private final Set<EventSearchKey> keys = new HashSet<>();
+
+    public synchronized void add(EventSearchKey key) {
+        if (keys.add(key)) {
+            for (Dimension<?> dimension : dimensions) {
+                dimension.add(key);
+            }
+        }
+    }
+
+    public synchronized void remove(EventSearchKey key) {
+        if (keys.remove(key)) {
+            for (Dimension<?> dimension : dimensions) {
+                dimension.remove(key);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        keys.clear();
+        for (Dimension<?> dimension : dimensions) {
+            dimension.clear();
+        }
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    /**
+     * Get the indexed keys whose results could contain the event
+     */
+    public synchronized List<EventSearchKey> matching(Event event) {
+        Dimension<?> narrowest = dimensions.get(0);
+        int fewest = Integer.MAX_VALUE;
+        for (Dimension<?> dimension : dimensions) {
+            int candidates = dimension.candidateCount(event);
+            if (candidates < fewest) {
+                narrowest = dimension;
+                fewest = candidates;
+            }
+        }
+
+        List<EventSearchKey> result = new ArrayList<>();
+        if (fewest == 0) {
+            return result;
+        }
+        narrowest.collectMatching(event, result);
+        return result;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Keys grouped by the value of one filter field; keys without that filter are wildcards
+     */
+    private static final class Dimension<T> {
+        private final Function<EventSearchKey, T> keyValue;
+        private final Function<Event, T> eventValue;
+        private final Map<T, Set<EventSearchKey>> byValue = new HashMap<>();
+        private final Set<EventSearchKey> wildcards = new HashSet<>();
+
+        private Dimension(Function<EventSearchKey, T> keyValue, Function<Event, T> eventValue) {
+            this.keyValue = keyValue;
+            this.eventValue = eventValue;
+        }
+
+        private void add(EventSearchKey key) {
+            T value = keyValue.apply(key);
+            if (value == null) {
+                wildcards.add(key);
+            } else {
+                byValue.computeIfAbsent(value, v -> new HashSet<>()).add(key);
+            }
+        }
+
+        private void remove(EventSearchKey key) {
+            T value = keyValue.apply(key);
+            if (value == null) {
+                wildcards.remove(key);
+                return;
+            }
+            Set<EventSearchKey> keys = byValue.get(value);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    byValue.remove(value);
+                }
+            }
+        }
+
+        private void clear() {
+            byValue.clear();
+            wildcards.clear();
+        }
+
+        private Set<EventSearchKey> exact(Event event) {
+            T value = eventValue.apply(event);
+            return value == null ? Collections.emptySet() : byValue.getOrDefault(value, Collections.emptySet());
+        }
+
+        private int candidateCount(Event event) {
+            return exact(event).size() + wildcards.size();
+        }
+
+        private void collectMatching(Event event, List<EventSearchKey> result) {
+            for (EventSearchKey key : exact(event)) {
+                if (key.matches(event)) {
+                    result.add(key);
+                }
+            }
+            for (EventSearchKey key : wildcards) {
+                if (key.matches(event)) {
+                    result.add(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.practical_test.cache;
+
+/**
+ * Count-Min sketch of 4-bit counters estimating how often keys were accessed
+ * Used as the TinyLFU admission filter of {@link TinyLfuCache}. All counters
+ * are halved once the number of recorded accesses reaches ten times the cache
+ * size, so the popularity of old entries fades. Not thread-safe; callers
+ * hold the cache's eviction lock.
+ */
+class FrequencySketch {
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    /**
+     * Estimated number of accesses of the key, capped at 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = counterOffset(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = counterOffset(hash, i);
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Halve every counter (each long holds 16 counters of 4 bits)
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private int counterOffset(int hash, int row) {
+        // One of the 16 counters in the long, chosen differently per row
+        return (((hash >>> (row << 3)) & 3) << 2 | row) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
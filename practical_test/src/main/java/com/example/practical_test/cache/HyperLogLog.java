@@ -0,0 +1,267 @@
+package com.example.practical_test.cache;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct longs added
+ * 2^precision one-byte registers keep the highest rank seen for their slice
+ * of the hash space, so memory is fixed (4 KB at precision 12) whatever the
+ * number of values, with a relative standard error of 1.04 / sqrt(2^precision).
+ * A new sketch starts sparse, holding only its non-zero registers (4 bytes
+ * each), and turns dense once more than 2^precision / 16 are set, so sketches
+ * of a few values stay a few bytes.
+ * Sketches of the same precision merge by taking the register maxima, which
+ * is idempotent: merging a sketch twice, or in any order, gives the same result.
+ * Adds that do not raise a register (almost all of them) take no lock.
+ */
+public class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+    // A sparse entry is the register index above the rank, which takes at most 61
+    private static final int RANK_BITS = 6;
+    private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+    private final int precision;
+    private final int sparseLimit;
+    // Sorted sparse entries, replaced on every change; null once dense
+    private volatile int[] sparse = new int[0];
+    // Null while sparse, never replaced once set
+    private volatile byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.sparseLimit = (1 << precision) / 16;
+    }
+
+    /**
+     * Restore a sketch written by {@link #toByteArray()}
+     */
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        if (bytes.length != (1 << sketch.precision) + 1) {
+            throw new IllegalArgumentException("Invalid HyperLogLog sketch of " + bytes.length + " bytes");
+        }
+        sketch.registers = Arrays.copyOfRange(bytes, 1, bytes.length);
+        sketch.sparse = null;
+        return sketch;
+    }
+
+    /**
+     * @return true if the sketch changed
+     */
+    public boolean add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - precision));
+        // The sentinel bit caps the rank at 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank <= register(index)) {
+            return false;
+        }
+        synchronized (this) {
+            return raise(index, rank);
+        }
+    }
+
+    /**
+     * Add every value added to the other sketch
+     * @return true if this sketch changed
+     */
+    public boolean merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " and " + precision);
+        }
+        int[] entries = other.sparse;
+        if (entries != null) {
+            boolean changed = false;
+            synchronized (this) {
+                for (int entry : entries) {
+                    changed |= raise(entry >>> RANK_BITS, entry & RANK_MASK);
+                }
+            }
+            return changed;
+        }
+        byte[] source = other.snapshot();
+        boolean changed = false;
+        synchronized (this) {
+            byte[] target = densify();
+            for (int i = 0; i < target.length; i++) {
+                if (source[i] > target[i]) {
+                    target[i] = source[i];
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Estimated number of distinct values
+     */
+    public long estimate() {
+        byte[] snapshot = snapshot();
+        int m = snapshot.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : snapshot) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Small range: linear counting over the empty registers is more accurate
+            estimate = m * Math.log(m / (double) zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Relative standard error of {@link #estimate()}
+     */
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Whether the sketch still holds only its non-zero registers
+     */
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    /**
+     * Precision byte followed by the registers
+     */
+    public byte[] toByteArray() {
+        byte[] snapshot = snapshot();
+        byte[] bytes = new byte[snapshot.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(snapshot, 0, bytes, 1, snapshot.length);
+        return bytes;
+    }
+
+    /**
+     * Current value of a register, read without locking
+     */
+    private int register(int index) {
+        int[] entries = sparse;
+        if (entries == null) {
+            return registers[index];
+        }
+        int position = find(entries, index);
+        return position < 0 ? 0 : entries[position] & RANK_MASK;
+    }
+
+    /**
+     * Raise a register to rank, holding the lock
+     * @return true if it was lower
+     */
+    private boolean raise(int index, int rank) {
+        int[] entries = sparse;
+        if (entries == null) {
+            if (rank <= registers[index]) {
+                return false;
+            }
+            registers[index] = (byte) rank;
+            return true;
+        }
+        int position = find(entries, index);
+        if (position >= 0) {
+            if (rank <= (entries[position] & RANK_MASK)) {
+                return false;
+            }
+            int[] raised = entries.clone();
+            raised[position] = index << RANK_BITS | rank;
+            sparse = raised;
+            return true;
+        }
+        if (entries.length == sparseLimit) {
+            densify()[index] = (byte) rank;
+            return true;
+        }
+        int insertion = -position - 1;
+        int[] grown = new int[entries.length + 1];
+        System.arraycopy(entries, 0, grown, 0, insertion);
+        grown[insertion] = index << RANK_BITS | rank;
+        System.arraycopy(entries, insertion, grown, insertion + 1, entries.length - insertion);
+        sparse = grown;
+        return true;
+    }
+
+    /**
+     * Switch to dense registers, holding the lock
+     */
+    private byte[] densify() {
+        int[] entries = sparse;
+        if (entries == null) {
+            return registers;
+        }
+        byte[] dense = new byte[1 << precision];
+        for (int entry : entries) {
+            dense[entry >>> RANK_BITS] = (byte) (entry & RANK_MASK);
+        }
+        // Registers before sparse: a reader that finds sparse null finds the registers
+        registers = dense;
+        sparse = null;
+        return dense;
+    }
+
+    private synchronized byte[] snapshot() {
+        int[] entries = sparse;
+        if (entries == null) {
+            return Arrays.copyOf(registers, registers.length);
+        }
+        byte[] dense = new byte[1 << precision];
+        for (int entry : entries) {
+            dense[entry >>> RANK_BITS] = (byte) (entry & RANK_MASK);
+        }
+        return dense;
+    }
+
+    /**
+     * Position of the entry of a register, or -(insertion point) - 1
+     */
+    private static int find(int[] entries, int index) {
+        int position = Arrays.binarySearch(entries, index << RANK_BITS);
+        // No entry has rank 0, so the search never hits and stops at the register's entry if there is one
+        int insertion = -position - 1;
+        if (insertion < entries.length && entries[insertion] >>> RANK_BITS == index) {
+            return insertion;
+        }
+        return position;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * 64-bit finalizer of MurmurHash3: spreads consecutive ids over the whole hash space
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
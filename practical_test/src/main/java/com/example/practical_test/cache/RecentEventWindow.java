@@ -0,0 +1,156 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The latest N events together with per-type counters for them
+ * Counters are incremented when an event enters the ring and decremented
+ * when it is overwritten, so summaries never rescan the window.
+ * Producers claim slots in sequence order, and the ring keeps events column
+ * by column in primitive arrays, coded by an {@link EventDictionary}, instead
+ * of one Event per slot (plus the category String of slots the dictionary has
+ * no code for). Each slot has a sequence that a producer swaps for a WRITING
+ * marker of its own sequence while it fills the slot; readers copy a slot and
+ * keep the copy only if its sequence was the same before and after, so reads
+ * never lock or wait.
+ * Producers do not lock but are not lock-free. A producer that finds its slot
+ * taken by a producer one lap ahead drops its event, which is already older
+ * than everything in the window, without waiting. A producer that laps the
+ * ring onto a slot an older producer is still filling has to spin until that
+ * write is published: a writer preempted mid-write stalls the producers that
+ * wrap onto its slot, one every capacity events.
+ */
+public class RecentEventWindow {
+    private static final long EMPTY = -1;
+    // Slot sequences at or below WRITING mark a slot being filled, by the producer of sequence WRITING - value
+    private static final long WRITING = -2;
+    
+    private final int capacity;
+    private final EventDictionary dictionary;
+    private final EventCounterTable counters;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray slotSequences;
+    private final long[] ids;
+    private final long[] userIds;
+    private final long[] timestamps;
+    private final long[] productIds;
+    private final byte[] types;
+    private final int[] categories;
+    private final String[] uncoded;
+    
+    public RecentEventWindow(int capacity, EventDictionary dictionary) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.dictionary = dictionary;
+        this.counters = new EventCounterTable();
+        this.slotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slotSequences.set(i, EMPTY);
+        }
+        this.ids = new long[capacity];
+        this.userIds = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.productIds = new long[capacity];
+        this.types = new byte[capacity];
+        this.categories = new int[capacity];
+        this.uncoded = new String[capacity];
+    }
+    
+    public void add(Event event) {
+        counters.increment(event.getCategory(), event.getEventType());
+        long claimed = sequence.getAndIncrement();
+        int index = (int) (claimed % capacity);
+        
+        while (true) {
+            long current = slotSequences.get(index);
+            long owner = current <= WRITING ? WRITING - current : current;
+            if (owner > claimed) {
+                // A producer one full lap ahead already took this slot, so this
+                // event is older than everything in the window
+                counters.decrement(event.getCategory(), event.getEventType());
+                return;
+            }
+            if (current <= WRITING) {
+                // An older producer is still filling the slot
+                Thread.onSpinWait();
+                continue;
+            }
+            if (slotSequences.compareAndSet(index, current, WRITING - claimed)) {
+                if (current != EMPTY) {
+                    counters.decrement(dictionary.category(categories[index], uncoded[index]),
+                            EventType.of(types[index]));
+                }
+                ids[index] = EventDictionary.encode(event.getId());
+                userIds[index] = EventDictionary.encode(event.getUserId());
+                timestamps[index] = EventDictionary.toEpochMicros(event.getTimestamp());
+                productIds[index] = EventDictionary.encode(event.getProductId());
+                types[index] = (byte) event.getEventType().ordinal();
+                categories[index] = dictionary.categoryCode(event.getCategory());
+                uncoded[index] = EventDictionary.uncoded(categories[index], event.getCategory());
+                slotSequences.set(index, claimed);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Get up to k most recent events, oldest first
+     * Slots that are claimed but not yet published are skipped.
+     */
+    public List<EventResponse> latest(int k) {
+        long end = sequence.get();
+        int count = (int) Math.min(Math.min(k, capacity), end);
+        
+        List<EventResponse> result = new ArrayList<>(count);
+        for (long seq = end - 1; seq >= end - count; seq--) {
+            int index = (int) (seq % capacity);
+            if (slotSequences.get(index) != seq) {
+                continue;
+            }
+            long id = ids[index];
+            long userId = userIds[index];
+            long timestamp = timestamps[index];
+            long productId = productIds[index];
+            byte type = types[index];
+            int category = categories[index];
+            String uncodedCategory = uncoded[index];
+            // Only keep the copy if no producer rewrote the slot meanwhile
+            VarHandle.acquireFence();
+            if (slotSequences.get(index) == seq) {
+                result.add(new EventResponse(EventDictionary.decode(id), EventDictionary.decode(userId),
+                        EventType.of(type), EventDictionary.decode(productId),
+                        dictionary.category(category, uncodedCategory), EventDictionary.fromEpochMicros(timestamp)));
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    public List<EventResponse> snapshot() {
+        return latest(capacity);
+    }
+    
+    /**
+     * Count events in the window per event type
+     * @param category category to count, or null for all categories
+     */
+    public Map<EventType, Long> summary(String category) {
+        return counters.counts(category);
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+}
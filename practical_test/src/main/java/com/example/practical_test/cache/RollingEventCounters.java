@@ -0,0 +1,156 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Event counts per (category, eventType) over a sliding time window
+ * Events are counted into per-second buckets covering the last 5 minutes and
+ * per-minute buckets covering the last hour. A bucket slot is reused lazily
+ * by the first write of a newer time unit, so expired buckets are reclaimed
+ * without scanning and reads simply skip buckets outside the window.
+ */
+public class RollingEventCounters {
+    public static final Duration MAX_WINDOW = Duration.ofHours(1);
+
+    private static final int SECOND_BUCKETS = 300;
+    private static final int MINUTE_BUCKETS = 60;
+
+    private final Clock clock;
+    private final BucketRing seconds;
+    private final BucketRing minutes;
+
+    public RollingEventCounters(Clock clock) {
+        this.clock = clock;
+        this.seconds = new BucketRing(SECOND_BUCKETS, 1);
+        this.minutes = new BucketRing(MINUTE_BUCKETS, 60);
+    }
+
+    /**
+     * Count an event into the buckets of its timestamp
+     * Events older than the covered range or in the future are ignored.
+     */
+    public void add(Event event) {
+        long epochSecond = event.getTimestamp().atZone(clock.getZone()).toEpochSecond();
+        long nowSecond = clock.instant().getEpochSecond();
+        seconds.add(epochSecond, nowSecond, event);
+        minutes.add(epochSecond, nowSecond, event);
+    }
+
+    /**
+     * Add the counts of another instance, e.g. events
+     * staged while a bulk load was running, once they are committed
+     */
+    public void addAll(RollingEventCounters other) {
+        long nowSecond = clock.instant().getEpochSecond();
+        seconds.addAll(other.seconds, nowSecond);
+        minutes.addAll(other.minutes, nowSecond);
+    }
+
+    /**
+     * Count events per event type over the last {@code window}
+     * Windows up to 5 minutes have one-second resolution, longer ones one-minute.
+     * @param category category to count, or null for all categories
+     */
+    public Map<EventType, Long> summary(Duration window, String category) {
+        if (window.isNegative() || window.isZero() || window.compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("Window must be between 1s and " + MAX_WINDOW.toMinutes() + "m");
+        }
+        long nowSecond = clock.instant().getEpochSecond();
+        long[] sums = new long[EventType.count()];
+        if (window.getSeconds() <= SECOND_BUCKETS) {
+            seconds.sumInto(nowSecond, window.getSeconds(), category, sums);
+        } else {
+            minutes.sumInto(nowSecond, (window.getSeconds() + 59) / 60, category, sums);
+        }
+
+        Map<EventType, Long> result = new EnumMap<>(EventType.class);
+        for (int i = 0; i < sums.length; i++) {
+            if (sums[i] > 0) {
+                result.put(EventType.of(i), sums[i]);
+            }
+        }
+        return result;
+    }
+
+    private final class BucketRing {
+        private final int size;
+        private final long unitSeconds;
+        private final AtomicReferenceArray<Bucket> buckets;
+
+        private BucketRing(int size, long unitSeconds) {
+            this.size = size;
+            this.unitSeconds = unitSeconds;
+            this.buckets = new AtomicReferenceArray<>(size);
+        }
+
+        private void add(long epochSecond, long nowSecond, Event event) {
+            Bucket bucket = bucketFor(Math.floorDiv(epochSecond, unitSeconds), nowSecond);
+            if (bucket != null) {
+                bucket.counters.increment(event.getCategory(), event.getEventType());
+            }
+        }
+
+        private void addAll(BucketRing other, long nowSecond) {
+            for (int i = 0; i < other.size; i++) {
+                Bucket source = other.buckets.get(i);
+                if (source != null) {
+                    Bucket bucket = bucketFor(source.unit, nowSecond);
+                    if (bucket != null) {
+                        bucket.counters.addAll(source.counters);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Bucket for a time unit, or null when the unit is outside the covered range
+         */
+        private Bucket bucketFor(long unit, long nowSecond) {
+            long nowUnit = Math.floorDiv(nowSecond, unitSeconds);
+            if (unit > nowUnit || unit <= nowUnit - size) {
+                return null;
+            }
+
+            int index = (int) Math.floorMod(unit, (long) size);
+            while (true) {
+                Bucket bucket = buckets.get(index);
+                if (bucket != null && bucket.unit == unit) {
+                    return bucket;
+                }
+                if (bucket != null && bucket.unit > unit) {
+                    // Slot already reused for a newer time unit
+                    return null;
+                }
+                // Expired or empty slot: replace it with a fresh bucket for this unit
+                buckets.compareAndSet(index, bucket, new Bucket(unit));
+            }
+        }
+
+        private void sumInto(long nowSecond, long units, String category, long[] sums) {
+            long nowUnit = Math.floorDiv(nowSecond, unitSeconds);
+            for (long unit = nowUnit; unit > nowUnit - units; unit--) {
+                Bucket bucket = buckets.get((int) Math.floorMod(unit, (long) size));
+                if (bucket != null && bucket.unit == unit) {
+                    bucket.counters.sumInto(category, sums);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long unit;
+        private final EventCounterTable counters;
+
+        private Bucket(long unit) {
+            this.unit = unit;
+            this.counters = new EventCounterTable();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.practical_test.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving summary of the most frequent longs, in at most capacity counters
+ * An untracked item takes over the counter of the least frequent one and
+ * inherits its count as error, so a count is never below the true count and at
+ * most error above it. Every item occurring more than total / capacity times
+ * is tracked. Counts are exact as long as no more than capacity distinct items
+ * were added. Counters are kept ordered, so updates cost O(log capacity) and
+ * reading the top k costs O(k). Counts cannot be taken back: an item evicted
+ * earlier may still be hidden in other counters' errors. Not thread-safe.
+ */
+public class SpaceSaving {
+    private static final Comparator<Counter> ORDER = Comparator.comparingLong((Counter counter) -> counter.count)
+            .reversed()
+            .thenComparingLong(counter -> counter.item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(ORDER);
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count += weight;
+        } else if (counters.size() < capacity) {
+            counter = new Counter(item, weight, 0);
+            counters.put(item, counter);
+        } else {
+            // Replace the least frequent item, which may have occurred up to its count times
+            counter = ordered.pollLast();
+            counters.remove(counter.item);
+            counter.error = counter.count;
+            counter.count += weight;
+            counter.item = item;
+            counters.put(item, counter);
+        }
+        ordered.add(counter);
+    }
+
+    /**
+     * Most times an item that is not tracked may have occurred: the smallest
+     * count once every counter is taken, 0 before
+     */
+    public long untrackedBound() {
+        return counters.size() < capacity ? 0 : ordered.last().count;
+    }
+
+    /**
+     * The k most frequent items, most frequent first
+     */
+    public List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, ordered.size()));
+        Iterator<Counter> iterator = ordered.iterator();
+        while (top.size() < k && iterator.hasNext()) {
+            Counter counter = iterator.next();
+            top.add(new Entry(counter.item, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    /**
+     * All tracked items, most frequent first
+     */
+    public List<Entry> entries() {
+        return top(ordered.size());
+    }
+
+    public void clear() {
+        counters.clear();
+        ordered.clear();
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * A tracked item: it occurred between count - error and count times
+     */
+    public record Entry(long item, long count, long error) {
+    }
+
+    private static final class Counter {
+        private long item;
+        private long count;
+        private long error;
+
+        private Counter(long item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
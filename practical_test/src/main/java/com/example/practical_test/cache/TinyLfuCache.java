@@ -0,0 +1,460 @@
+package com.example.practical_test.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Concurrent bounded cache with W-TinyLFU eviction
+ * Reads are a ConcurrentHashMap lookup plus a lossy append to a per-thread-striped
+ * read buffer; the access-order bookkeeping is replayed from those buffers in
+ * batches under a single eviction lock, which writes also take.
+ * New entries go through a small LRU window. When an entry leaves the window it
+ * must beat the main region's LRU victim on estimated access frequency
+ * ({@link FrequencySketch}) to be admitted, so a burst of one-off queries cannot
+ * flush out entries that are read often. The main region is a segmented LRU
+ * (probation, then protected once read again).
+ * Besides the entry count, the cache can bound the total weight of its values
+ * as measured by a weigher (e.g. rows in a result list).
+ */
+public class TinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_STRIPES =
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final int windowMax;
+    private final int protectedMax;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final BiConsumer<K, V> evictionListener;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private int windowSize;
+    private int mainSize;
+    private int protectedSize;
+    private volatile long weightedSize;
+
+    public TinyLfuCache(int maxSize) {
+        this(maxSize, (key, value) -> { });
+    }
+
+    /**
+     * @param evictionListener called (while holding the eviction lock) for every entry evicted by size
+     */
+    public TinyLfuCache(int maxSize, BiConsumer<K, V> evictionListener) {
+        this(maxSize, Long.MAX_VALUE, (key, value) -> 1, evictionListener);
+    }
+    
+    /**
+     * @param maxWeight maximum total weight of all values
+     * @param weigher weight of one entry, re-evaluated whenever its value is replaced
+     * @param evictionListener called (while holding the eviction lock) for every entry evicted by size or weight
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int maxSize, long maxWeight, ToIntBiFunction<? super K, ? super V> weigher,
+                        BiConsumer<K, V> evictionListener) {
+        if (maxSize <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Max size and max weight must be positive");
+        }
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.windowMax = Math.max(1, maxSize / 100);
+        this.protectedMax = (maxSize - windowMax) * 8 / 10;
+        this.evictionListener = evictionListener;
+        this.sketch = new FrequencySketch(maxSize);
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        afterRead(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        while (true) {
+            Node<K, V> node = new Node<>(key, value);
+            Node<K, V> prior = data.putIfAbsent(key, node);
+            if (prior == null) {
+                afterWrite(node);
+                return;
+            }
+            // Serialize with computeIfPresent on the same key
+            Node<K, V> updated = data.computeIfPresent(key, (k, existing) -> {
+                existing.value = value;
+                return existing;
+            });
+            if (updated != null) {
+                afterUpdate(updated);
+                return;
+            }
+            // Removed concurrently, insert again
+        }
+    }
+
+    /**
+     * Atomically replace the value of a present key
+     * @return the new value, or null if the key is absent
+     */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Object[] removed = new Object[1];
+        Node<K, V> node = data.computeIfPresent(key, (k, existing) -> {
+            V value = remappingFunction.apply(k, existing.value);
+            if (value == null) {
+                removed[0] = existing;
+                return null;
+            }
+            existing.value = value;
+            return existing;
+        });
+        if (removed[0] != null) {
+            @SuppressWarnings("unchecked")
+            Node<K, V> removedNode = (Node<K, V>) removed[0];
+            afterRemove(removedNode);
+        }
+        if (node == null) {
+            return null;
+        }
+        afterUpdate(node);
+        return node.value;
+    }
+
+    public void remove(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            afterRemove(node);
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    unlink(node);
+                }
+            }
+            for (ReadBuffer<K, V> buffer : readBuffers) {
+                buffer.drainTo(ignored -> { });
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+    
+    /**
+     * Total weight of the cached values
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public boolean containsKey(K key) {
+        return data.containsKey(key);
+    }
+
+    private void afterRead(Node<K, V> node) {
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (!buffer.offer(node) && evictionLock.tryLock()) {
+            // Buffer full: replay buffered reads now unless another thread is already doing it
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterWrite(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            if (data.get(node.key) != node) {
+                // Removed or cleared before it could be linked
+                return;
+            }
+            sketch.increment(node.key);
+            node.weight = weigher.applyAsInt(node.key, node.value);
+            weightedSize += node.weight;
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowSize++;
+            evictFromWindow();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterUpdate(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (!node.linked) {
+                return;
+            }
+            // Weighed under the lock from the latest value, so concurrent updates cannot skew the total
+            int weight = weigher.applyAsInt(node.key, node.value);
+            weightedSize += weight - node.weight;
+            node.weight = weight;
+            evictWhileOverCapacity();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterRemove(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drainTo(this::onAccess);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            // Read again while on probation: promote to the protected segment
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            protectedSize++;
+            if (protectedSize > protectedMax) {
+                Node<K, V> demoted = protectedQueue.pollFirst();
+                protectedSize--;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protectedQueue.moveToLast(node);
+        }
+    }
+
+    /**
+     * Move entries leaving the window into the main region, letting each one
+     * compete with the main region's LRU victims once the cache is full
+     */
+    private void evictFromWindow() {
+        while (windowSize > windowMax) {
+            Node<K, V> candidate = window.pollFirst();
+            windowSize--;
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+            mainSize++;
+            admit(candidate);
+        }
+        evictWhileOverCapacity();
+    }
+
+    /**
+     * Evict main-region victims while the candidate is estimated to be more
+     * frequently used than them, otherwise evict the candidate itself
+     */
+    private void admit(Node<K, V> candidate) {
+        while (isOverCapacity()) {
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == candidate) {
+                victim = protectedQueue.peekFirst();
+            }
+            if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                evict(candidate);
+                return;
+            }
+            evict(victim);
+        }
+    }
+
+    /**
+     * Evict in LRU order, main region first, e.g. after an entry grew heavier
+     */
+    private void evictWhileOverCapacity() {
+        while (isOverCapacity()) {
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedQueue.peekFirst();
+            }
+            if (victim == null) {
+                victim = window.peekFirst();
+            }
+            evict(victim);
+        }
+    }
+
+    private boolean isOverCapacity() {
+        return windowSize + mainSize > maxSize || weightedSize > maxWeight;
+    }
+
+    private void evict(Node<K, V> node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            evictionListener.accept(node.key, node.value);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+        weightedSize -= node.weight;
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowSize--;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            mainSize--;
+        } else {
+            protectedQueue.remove(node);
+            protectedSize--;
+            mainSize--;
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+
+        // Guarded by evictionLock
+        private int queue;
+        private int weight;
+        private boolean linked;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in access order (first = least recently used)
+     */
+    private static final class AccessOrderDeque<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.linked = true;
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.linked = false;
+        }
+    }
+
+    /**
+     * Bounded multi-producer buffer of recent reads; drops reads when full
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCount = new AtomicLong();
+        // Guarded by evictionLock
+        private volatile long readCount;
+
+        boolean offer(Node<K, V> node) {
+            long tail = writeCount.get();
+            if (tail - readCount >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCount.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), node);
+            }
+            return true;
+        }
+
+        void drainTo(Consumer<Node<K, V>> consumer) {
+            long head = readCount;
+            long tail = writeCount.get();
+            while (head < tail) {
+                int index = (int) (head & (READ_BUFFER_SIZE - 1));
+                Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    // Claimed but not yet published
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+                head++;
+            }
+            readCount = head;
+        }
+    }
+}
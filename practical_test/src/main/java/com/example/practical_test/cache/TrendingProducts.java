@@ -0,0 +1,354 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Most frequent products per (eventType, category) over sliding time windows
+ * Each window is split into 12 slices with a Space-Saving summary each, plus
+ * the slice being filled. An expired slice is dropped whole, so the window
+ * slides in steps of 1/12 of its length. The ranking of a window merges its
+ * 12 whole slices: a product's count is the sum of its slice counts, plus the
+ * untracked bound of every full slice that does not track it, so counts stay
+ * upper bounds with their error, and every product above 1/capacity of the
+ * window's events is found. The merge runs once per slice, on the first read
+ * after the window slid (or after events were added to a whole slice), and
+ * other reads take the first k of the ranking without locking, so the
+ * ranking covers the window up to the last slice boundary. Memory is
+ * bounded by the capacity: at most (slices + 1) * capacity counters per
+ * window, event type and category. Counts are exact while no slice sees
+ * more than capacity distinct products.
+ * Categories are free-form: at most maxCategoryTrends (eventType, category)
+ * pairs are ranked, events of later pairs are only counted under all
+ * categories, and pairs without events in any window are evicted by
+ * {@link #evictIdle()}.
+ */
+public class TrendingProducts {
+    public static final int SLICES = 12;
+    private static final Comparator<SpaceSaving.Entry> RANKING = Comparator
+            .comparingLong(SpaceSaving.Entry::count).reversed()
+            .thenComparingLong(SpaceSaving.Entry::item);
+
+    private final Clock clock;
+    private final int capacity;
+    private final int maxCategoryTrends;
+    private final Duration[] windows;
+    private final long longestWindowMillis;
+    private final Map<TrendKey, Trend> trends = new ConcurrentHashMap<>();
+    private final AtomicInteger categoryTrends = new AtomicInteger();
+
+    public TrendingProducts(Clock clock, int capacity, int maxCategoryTrends, Duration... windows) {
+        long longest = 0;
+        for (Duration window : windows) {
+            if (window.toMillis() < SLICES) {
+                throw new IllegalArgumentException("Window " + window + " is too short");
+            }
+            longest = Math.max(longest, window.toMillis());
+        }
+        this.clock = clock;
+        this.capacity = capacity;
+        this.maxCategoryTrends = maxCategoryTrends;
+        this.windows = windows.clone();
+        this.longestWindowMillis = longest;
+    }
+
+    /**
+     * Count an event's product under its category and under all categories
+     * Events without a product, older than a window or in the future are
+     * not counted in that window, and events of a new category past
+     * maxCategoryTrends only under all categories.
+     */
+    public void add(Event event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+        long epochMilli = event.getTimestamp().atZone(clock.getZone()).toInstant().toEpochMilli();
+        long nowMilli = clock.millis();
+        add(new TrendKey(event.getEventType(), null), event.getProductId(), epochMilli, nowMilli);
+        if (event.getCategory() != null) {
+            add(new TrendKey(event.getEventType(), event.getCategory()), event.getProductId(), epochMilli, nowMilli);
+        }
+    }
+
+    /**
+     * Add the counts of another instance with the same windows, e.g. events
+     * staged while a bulk load was running, once they are committed
+     */
+    public void addAll(TrendingProducts other) {
+        long nowMilli = clock.millis();
+        other.trends.forEach((key, source) -> {
+            while (true) {
+                Trend trend = trend(key);
+                if (trend == null || trend.addAll(source, nowMilli)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Evict the (eventType, category) pairs whose latest event left every window
+     * @return number of pairs evicted
+     */
+    public int evictIdle() {
+        long idleBefore = clock.millis() - longestWindowMillis;
+        int evicted = 0;
+        for (Map.Entry<TrendKey, Trend> entry : trends.entrySet()) {
+            if (entry.getValue().retireIfIdle(idleBefore)) {
+                trends.remove(entry.getKey(), entry.getValue());
+                if (entry.getKey().category() != null) {
+                    categoryTrends.decrementAndGet();
+                }
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Number of (eventType, category) pairs ranked, including those of all categories
+     */
+    public int size() {
+        return trends.size();
+    }
+
+    /**
+     * The k most frequent products over a window, most frequent first
+     * @param category category to rank, or null for all categories
+     */
+    public List<SpaceSaving.Entry> top(EventType eventType, String category, Duration window, int k) {
+        int index = windowIndex(window);
+        Trend trend = trends.get(new TrendKey(eventType, category));
+        if (trend == null) {
+            return List.of();
+        }
+        return trend.top(index, k, clock.millis());
+    }
+
+    public boolean hasWindow(Duration window) {
+        for (Duration candidate : windows) {
+            if (candidate.equals(window)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int windowIndex(Duration window) {
+        for (int i = 0; i < windows.length; i++) {
+            if (windows[i].equals(window)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported window " + window);
+    }
+
+    private void add(TrendKey key, long productId, long epochMilli, long nowMilli) {
+        while (true) {
+            Trend trend = trend(key);
+            // A trend evicted in the meantime is retired: count into its replacement
+            if (trend == null || trend.add(productId, epochMilli, nowMilli)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The trend of a pair, created if needed, or null for a new category pair past maxCategoryTrends
+     */
+    private Trend trend(TrendKey key) {
+        Trend trend = trends.get(key);
+        if (trend != null) {
+            return trend;
+        }
+        if (key.category() == null) {
+            return trends.computeIfAbsent(key, k -> new Trend());
+        }
+        if (categoryTrends.incrementAndGet() > maxCategoryTrends) {
+            categoryTrends.decrementAndGet();
+            return trends.get(key);
+        }
+        Trend created = new Trend();
+        Trend prior = trends.putIfAbsent(key, created);
+        if (prior != null) {
+            categoryTrends.decrementAndGet();
+            return prior;
+        }
+        return created;
+    }
+
+    private record TrendKey(EventType eventType, String category) {
+    }
+
+    /**
+     * The windows of one (eventType, category); updates and merges lock the
+     * whole trend, reads of an up-to-date ranking do not lock
+     */
+    private final class Trend {
+        private final Window[] trendWindows = new Window[windows.length];
+        // Guarded by this: latest event time counted, and whether the trend was evicted
+        private long latestMilli = Long.MIN_VALUE;
+        private boolean retired;
+
+        private Trend() {
+            for (int i = 0; i < windows.length; i++) {
+                trendWindows[i] = new Window(windows[i].toMillis() / SLICES);
+            }
+        }
+
+        /**
+         * @return false if the trend was evicted and counts nothing any more
+         */
+        private synchronized boolean add(long productId, long epochMilli, long nowMilli) {
+            if (retired) {
+                return false;
+            }
+            for (Window window : trendWindows) {
+                window.add(productId, 1, Math.floorDiv(epochMilli, window.sliceMillis), nowMilli);
+            }
+            if (epochMilli <= nowMilli) {
+                latestMilli = Math.max(latestMilli, epochMilli);
+            }
+            return true;
+        }
+
+        /**
+         * @return false if the trend was evicted and counts nothing any more
+         */
+        private boolean addAll(Trend source, long nowMilli) {
+            synchronized (source) {
+                synchronized (this) {
+                    if (retired) {
+                        return false;
+                    }
+                    for (int i = 0; i < trendWindows.length; i++) {
+                        Window window = trendWindows[i];
+                        for (Slice slice : source.trendWindows[i].slices) {
+                            for (SpaceSaving.Entry entry : slice.products.entries()) {
+                                window.add(entry.item(), entry.count(), slice.unit, nowMilli);
+                            }
+                        }
+                    }
+                    latestMilli = Math.max(latestMilli, source.latestMilli);
+                    return true;
+                }
+            }
+        }
+
+        private synchronized boolean retireIfIdle(long idleBefore) {
+            retired = latestMilli < idleBefore;
+            return retired;
+        }
+
+        private List<SpaceSaving.Entry> top(int window, int k, long nowMilli) {
+            Window trendWindow = trendWindows[window];
+            long nowUnit = Math.floorDiv(nowMilli, trendWindow.sliceMillis);
+            Ranking ranking = trendWindow.ranking;
+            if (ranking.unit != nowUnit || trendWindow.stale) {
+                synchronized (this) {
+                    ranking = trendWindow.rank(nowUnit);
+                }
+            }
+            return k >= ranking.entries.size() ? ranking.entries : ranking.entries.subList(0, k);
+        }
+    }
+
+    /**
+     * Products of a window's whole slices, most frequent first, as merged at a slice boundary
+     */
+    private record Ranking(long unit, List<SpaceSaving.Entry> entries) {
+    }
+
+    private final class Window {
+        private final long sliceMillis;
+        // The 12 whole slices of the window and the slice being filled
+        private final Slice[] slices = new Slice[SLICES + 1];
+        private volatile Ranking ranking = new Ranking(Long.MIN_VALUE, List.of());
+        // Set when a whole slice changed after the ranking was merged
+        private volatile boolean stale;
+
+        private Window(long sliceMillis) {
+            this.sliceMillis = sliceMillis;
+            for (int i = 0; i < slices.length; i++) {
+                slices[i] = new Slice();
+            }
+        }
+
+        private void add(long productId, long weight, long unit, long nowMilli) {
+            long nowUnit = Math.floorDiv(nowMilli, sliceMillis);
+            advance(nowUnit);
+            if (unit > nowUnit || unit < nowUnit - SLICES) {
+                return;
+            }
+            Slice slice = slices[(int) Math.floorMod(unit, (long) slices.length)];
+            slice.unit = unit;
+            slice.products.add(productId, weight);
+            if (unit < nowUnit) {
+                stale = true;
+            }
+        }
+
+        /**
+         * Merge the whole slices into the ranking, unless another thread just did
+         */
+        private Ranking rank(long nowUnit) {
+            if (ranking.unit == nowUnit && !stale) {
+                return ranking;
+            }
+            stale = false;
+            advance(nowUnit);
+            // Per product: summed count, summed error, and the untracked bounds of the slices tracking it
+            Map<Long, long[]> merged = new HashMap<>();
+            long untracked = 0;
+            for (Slice slice : slices) {
+                if (slice.unit >= nowUnit) {
+                    continue;
+                }
+                long bound = slice.products.untrackedBound();
+                untracked += bound;
+                for (SpaceSaving.Entry entry : slice.products.entries()) {
+                    long[] sums = merged.computeIfAbsent(entry.item(), item -> new long[3]);
+                    sums[0] += entry.count();
+                    sums[1] += entry.error();
+                    sums[2] += bound;
+                }
+            }
+            List<SpaceSaving.Entry> ranked = new ArrayList<>(merged.size());
+            for (Map.Entry<Long, long[]> entry : merged.entrySet()) {
+                long[] sums = entry.getValue();
+                // It may have occurred up to the bound of each full slice that does not track it
+                long hidden = untracked - sums[2];
+                ranked.add(new SpaceSaving.Entry(entry.getKey(), sums[0] + hidden, sums[1] + hidden));
+            }
+            ranked.sort(RANKING);
+            ranking = new Ranking(nowUnit, List.copyOf(ranked.subList(0, Math.min(capacity, ranked.size()))));
+            return ranking;
+        }
+
+        /**
+         * Drop the slices that left the window
+         */
+        private void advance(long nowUnit) {
+            for (Slice slice : slices) {
+                if (slice.unit < nowUnit - SLICES && !slice.products.isEmpty()) {
+                    slice.products.clear();
+                }
+            }
+        }
+    }
+
+    private final class Slice {
+        private long unit = Long.MIN_VALUE;
+        private final SpaceSaving products = new SpaceSaving(capacity);
+    }
+}
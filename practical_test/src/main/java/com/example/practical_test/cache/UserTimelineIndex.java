@@ -0,0 +1,293 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The latest events of recently queried users, for GET /events?userId=...
+ * A user's timeline is loaded on the first search for the user, then kept up
+ * to date by splicing in committed writes. Events are held oldest first in
+ * parallel primitive arrays (id, timestamp in epoch micros, product id,
+ * event type ordinal, category code from the shared {@link EventDictionary},
+ * or the category itself once the dictionary is full), about 30 bytes per event, at most
+ * capacity per user: the oldest event is dropped when a newer one arrives.
+ * A timeline knows from which (timestamp, id) on it holds every event of its
+ * user, so a search is answered from memory only when the matching events it
+ * returns are all inside that range. Timelines not searched for a while are
+ * evicted, and at most maxUsers are kept.
+ */
+public class UserTimelineIndex {
+    // Filter value matching every event
+    private static final int ANY = Integer.MIN_VALUE;
+    private static final int INITIAL_SIZE = 16;
+
+    private final int capacity;
+    private final int maxUsers;
+    private final EventDictionary dictionary;
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    public UserTimelineIndex(int capacity, int maxUsers, EventDictionary dictionary) {
+        this.capacity = capacity;
+        this.maxUsers = maxUsers;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Load a user's timeline unless it is indexed already or the index is full
+     * @param from oldest timestamp the loader reads, or null for all
+     * @param loader the user's newest events from there on (up to capacity + 1), newest first
+     * @return true if the timeline was loaded
+     */
+    public boolean load(long userId, LocalDateTime from, Supplier<List<EventResponse>> loader) {
+        if (timelines.size() >= maxUsers) {
+            return false;
+        }
+        Timeline timeline = new Timeline();
+        if (timelines.putIfAbsent(userId, timeline) != null) {
+            return false;
+        }
+        List<EventResponse> rows;
+        try {
+            rows = loader.get();
+        } catch (RuntimeException e) {
+            timelines.remove(userId, timeline);
+            throw e;
+        }
+        timeline.fill(rows, from);
+        return true;
+    }
+
+    /**
+     * Splice committed events into the timelines of their users
+     */
+    public void apply(List<Event> events) {
+        for (Event event : events) {
+            Timeline timeline = timelines.get(event.getUserId());
+            if (timeline != null) {
+                timeline.add(event);
+            }
+        }
+    }
+
+    /**
+     * One page of a user's search, newest first, from the index
+     * @param key search with a userId; at most key.getMaxRows() rows are returned
+     * @param afterTimestamp with afterId, only events before this position, or null
+     * @return the rows, or null when the user is not indexed or the page reaches
+     * past the events the timeline holds
+     */
+    public List<EventResponse> find(EventSearchKey key, LocalDateTime afterTimestamp, Long afterId) {
+        Timeline timeline = timelines.get(key.getUserId());
+        if (timeline == null) {
+            return null;
+        }
+        return timeline.find(key, afterTimestamp, afterId);
+    }
+
+    /**
+     * Evict the timelines not searched for idleNanos
+     * @return number of timelines evicted
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int before = timelines.size();
+        timelines.values().removeIf(timeline -> now - timeline.lastAccess > idleNanos);
+        return before - timelines.size();
+    }
+
+    /**
+     * Drop every timeline, e.g. when writes could not be spliced
+     */
+    public void clear() {
+        timelines.clear();
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    private static long micros(LocalDateTime timestamp) {
+        return EventDictionary.toEpochMicros(timestamp);
+    }
+
+    private static int compare(long timestamp, long id, long otherTimestamp, long otherId) {
+        int order = Long.compare(timestamp, otherTimestamp);
+        return order != 0 ? order : Long.compare(id, otherId);
+    }
+
+    /**
+     * One user's events ordered by (timestamp, id). Until loaded, writes are
+     * kept aside and merged into the loaded events; the id check drops those
+     * the load already read.
+     */
+    private final class Timeline {
+        private long[] ids = new long[INITIAL_SIZE];
+        private long[] timestamps = new long[INITIAL_SIZE];
+        private long[] productIds = new long[INITIAL_SIZE];
+        private byte[] types = new byte[INITIAL_SIZE];
+        private int[] categoryCodes = new int[INITIAL_SIZE];
+        // Categories of UNCODED events, null while there are none
+        private String[] uncoded;
+        private int size;
+        // Every event of the user at or after (fromTimestamp, fromId) is held
+        private long fromTimestamp = Long.MIN_VALUE;
+        private long fromId = Long.MIN_VALUE;
+        private List<Event> pending = new ArrayList<>();
+        private volatile long lastAccess = System.nanoTime();
+
+        private synchronized void fill(List<EventResponse> newestFirst, LocalDateTime from) {
+            int count = Math.min(newestFirst.size(), capacity);
+            for (int i = count - 1; i >= 0; i--) {
+                EventResponse row = newestFirst.get(i);
+                append(row.getId(), micros(row.getTimestamp()), row.getProductId(),
+                        row.getEventType().ordinal(), row.getCategory());
+            }
+            if (newestFirst.size() > capacity) {
+                // Older events exist: only the loaded ones are known
+                fromTimestamp = timestamps[0];
+                fromId = ids[0];
+            } else if (from != null) {
+                fromTimestamp = micros(from);
+            }
+            List<Event> writes = pending;
+            pending = null;
+            for (Event event : writes) {
+                insert(event);
+            }
+        }
+
+        private synchronized void add(Event event) {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                insert(event);
+            }
+        }
+
+        private synchronized List<EventResponse> find(EventSearchKey key, LocalDateTime afterTimestamp, Long afterId) {
+            if (pending != null) {
+                return null;
+            }
+            lastAccess = System.nanoTime();
+            int type = key.getEventType() == null ? ANY : key.getEventType().ordinal();
+            int category = key.getCategory() == null || key.getCategory().isEmpty()
+                    ? ANY : dictionary.findCategoryCode(key.getCategory());
+            long from = key.getFrom() != null ? micros(key.getFrom()) : Long.MIN_VALUE;
+            long to = key.getTo() != null ? micros(key.getTo()) : Long.MAX_VALUE;
+            long beforeTimestamp = afterTimestamp != null ? micros(afterTimestamp) : Long.MAX_VALUE;
+            long beforeId = afterId != null ? afterId : Long.MAX_VALUE;
+
+            List<EventResponse> rows = new ArrayList<>(Math.min(key.getMaxRows(), size));
+            for (int i = size - 1; i >= 0 && timestamps[i] >= from; i--) {
+                if (timestamps[i] > to || compare(timestamps[i], ids[i], beforeTimestamp, beforeId) >= 0) {
+                    continue;
+                }
+                if ((type == ANY || types[i] == type)
+                        && (category == ANY || categoryCodes[i] == category
+                            && (category != EventDictionary.UNCODED || key.getCategory().equals(uncoded[i])))
+                        && (key.getProductId() == null || productIds[i] == key.getProductId())) {
+                    rows.add(toResponse(key.getUserId(), i));
+                    if (rows.size() == key.getMaxRows()) {
+                        return rows;
+                    }
+                }
+            }
+            // Not a full page: complete only if nothing matching can precede the held events
+            return compare(from, Long.MIN_VALUE, fromTimestamp, fromId) >= 0 ? rows : null;
+        }
+
+        private void insert(Event event) {
+            long timestamp = micros(event.getTimestamp());
+            long id = event.getId();
+            if (compare(timestamp, id, fromTimestamp, fromId) < 0) {
+                // Older than what the timeline holds, which stays complete from its start on
+                return;
+            }
+            int index = size;
+            while (index > 0 && compare(timestamps[index - 1], ids[index - 1], timestamp, id) > 0) {
+                index--;
+            }
+            if (index > 0 && ids[index - 1] == id) {
+                return;
+            }
+            if (size == capacity) {
+                // Drop the oldest event (possibly this one); the timeline now starts after it
+                if (index > 0) {
+                    shift(1, 0, index - 1);
+                    set(index - 1, id, timestamp, event.getProductId(), event.getEventType().ordinal(),
+                            event.getCategory());
+                }
+                fromTimestamp = timestamps[0];
+                fromId = ids[0];
+                return;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            shift(index, index + 1, size - index);
+            set(index, id, timestamp, event.getProductId(), event.getEventType().ordinal(), event.getCategory());
+            size++;
+        }
+
+        private void append(long id, long timestamp, Long productId, int type, String category) {
+            if (size == ids.length) {
+                grow();
+            }
+            set(size++, id, timestamp, productId, type, category);
+        }
+
+        private void set(int index, long id, long timestamp, Long productId, int type, String category) {
+            ids[index] = id;
+            timestamps[index] = timestamp;
+            productIds[index] = EventDictionary.encode(productId);
+            types[index] = (byte) type;
+            categoryCodes[index] = dictionary.categoryCode(category);
+            if (categoryCodes[index] == EventDictionary.UNCODED && uncoded == null) {
+                uncoded = new String[ids.length];
+            }
+            if (uncoded != null) {
+                uncoded[index] = EventDictionary.uncoded(categoryCodes[index], category);
+            }
+        }
+
+        private void shift(int from, int to, int length) {
+            System.arraycopy(ids, from, ids, to, length);
+            System.arraycopy(timestamps, from, timestamps, to, length);
+            System.arraycopy(productIds, from, productIds, to, length);
+            System.arraycopy(types, from, types, to, length);
+            System.arraycopy(categoryCodes, from, categoryCodes, to, length);
+            if (uncoded != null) {
+                System.arraycopy(uncoded, from, uncoded, to, length);
+            }
+        }
+
+        private void grow() {
+            int length = Math.min(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            timestamps = Arrays.copyOf(timestamps, length);
+            productIds = Arrays.copyOf(productIds, length);
+            types = Arrays.copyOf(types, length);
+            categoryCodes = Arrays.copyOf(categoryCodes, length);
+            if (uncoded != null) {
+                uncoded = Arrays.copyOf(uncoded, length);
+            }
+        }
+
+        private EventResponse toResponse(Long userId, int index) {
+            return new EventResponse(ids[index], userId, EventType.of(types[index]),
+                    EventDictionary.decode(productIds[index]),
+                    dictionary.category(categoryCodes[index], uncoded != null ? uncoded[index] : null),
+                    EventDictionary.fromEpochMicros(timestamps[index]));
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package com.example.practical_test.controller;
 
+import com.example.practical_test.dto.BulkLoadResponse;
+import com.example.practical_test.dto.DistinctUsersResponse;
+import com.example.practical_test.dto.EventPage;
 import com.example.practical_test.dto.EventRequest;
 import com.example.practical_test.dto.EventResponse;
 import com.example.practical_test.dto.EventSummaryResponse;
+import com.example.practical_test.dto.FunnelResponse;
+import com.example.practical_test.dto.IngestionStatsResponse;
+import com.example.practical_test.dto.TrendingProductsResponse;
+import com.example.practical_test.exceptions.IngestionBufferFullException;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.service.EventBulkReader;
+import com.example.practical_test.service.EventIngestionBuffer;
 import com.example.practical_test.service.EventService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,14 +23,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -28,9 +49,24 @@ import java.util.Map;
 @Tag(name = "Events", description = "Event management endpoints")
 @SecurityRequirement(name = "Bearer Authentication")
 public class EventController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    
     @Autowired
     private EventService eventService;
     
+    @Autowired
+    private JsonMapper jsonMapper;
+    
+    // Exports can run far longer than other async requests (spring.mvc.async.request-timeout)
+    @Value("${events.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
+    
+    // Only present when events.ingestion.async.enabled=true
+    @Autowired(required = false)
+    private EventIngestionBuffer ingestionBuffer;
+    
     @Operation(summary = "Create a single event", description = "Create a new user event (VIEW, ADD_TO_CART, or PURCHASE)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Event created successfully",
@@ -70,11 +106,99 @@ public class EventController {
         }
     }
     
+    @Operation(summary = "Bulk load events", 
+        description = "Load NDJSON (application/x-ndjson) or CSV (text/csv: userId,eventType,productId,category,timestamp) " +
+            "events in one transaction with PostgreSQL binary COPY. The body is streamed, so loads are not limited in size; " +
+            "an invalid event rejects the whole load")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Events loaded successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkLoadResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid event data, nothing was loaded",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token"),
+        @ApiResponse(responseCode = "500", description = "Database failure, nothing was loaded",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class)))
+    })
+    @PostMapping(value = "/bulk", consumes = {NDJSON, CSV})
+    public ResponseEntity<?> bulkLoadEvents(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            InputStream body) {
+        try {
+            Iterator<EventRequest> requests = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                    ? EventBulkReader.csv(body)
+                    : EventBulkReader.ndjson(jsonMapper, body);
+            BulkLoadResponse response = eventService.bulkLoad(requests);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            // Bad or unreadable body; database failures are left to GlobalExceptionHandler as 500
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
+        }
+    }
+    
+    @Operation(summary = "Create an event asynchronously", 
+        description = "Validate the event and queue it for a background batched write. Requires events.ingestion.async.enabled=true. "
+            + "Delivery is at most once: a batch that still fails after events.ingestion.async.max-attempts writes is dropped "
+            + "and counted in failedCount of /events/async/stats")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Event accepted for writing",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = EventResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid event data",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "429", description = "Ingestion buffer is full, retry later",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "503", description = "Async ingestion is disabled",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @PostMapping("/async")
+    public ResponseEntity<?> createEventAsync(@Valid @RequestBody EventRequest request) {
+        if (ingestionBuffer == null) {
+            return asyncIngestionDisabled();
+        }
+        try {
+            Event event = eventService.toEvent(request);
+            ingestionBuffer.submit(event);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(eventService.toEventResponse(event));
+        } catch (IngestionBufferFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "TOO_MANY_REQUESTS"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
+        }
+    }
+    
+    @Operation(summary = "Get async ingestion statistics", 
+        description = "Get buffer depth, accepted/rejected/failed/retried counts and flush latency of the async ingestion buffer")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ingestion statistics retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = IngestionStatsResponse.class))),
+        @ApiResponse(responseCode = "503", description = "Async ingestion is disabled"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @GetMapping("/async/stats")
+    public ResponseEntity<?> getIngestionStats() {
+        if (ingestionBuffer == null) {
+            return asyncIngestionDisabled();
+        }
+        try {
+            return ResponseEntity.ok(ingestionBuffer.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
+        }
+    }
+    
     @Operation(summary = "Search and filter events", 
-        description = "Search events with optional filters: userId, eventType, category, productId, date range")
+        description = "Search events with optional filters: userId, eventType, category, productId, date range. " +
+            "Results are paged newest first; when more events match, the X-Next-Cursor response header " +
+            "holds the cursor of the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Events retrieved successfully",
             content = @Content(mediaType = "application/json", schema = @Schema(type = "array", implementation = EventResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class)))
     })
@@ -91,16 +215,58 @@ public class EventController {
             @Parameter(description = "Filter events from this date (ISO format)") 
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @Parameter(description = "Filter events until this date (ISO format)") 
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 100, capped at the configured maximum)") 
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<EventResponse> events = eventService.getEvents(userId, eventType, category, productId, from, to);
-            return ResponseEntity.ok(events);
+            EventPage page = eventService.getEvents(userId, eventType, category, productId, from, to, cursor, limit);
+            if (page.getNextCursor() != null) {
+                return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, page.getNextCursor()).body(page.getEvents());
+            }
+            return ResponseEntity.ok(page.getEvents());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
         }
     }
     
+    @Operation(summary = "Export events as NDJSON", 
+        description = "Stream every event matching the filters, newest first, one JSON object per line. " +
+            "Rows are read through a database cursor, so the export is not limited in size; it is cut off after "
+            + "events.export.timeout-ms")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Events streamed",
+            content = @Content(mediaType = NDJSON, schema = @Schema(implementation = EventResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @GetMapping(value = "/export", produces = NDJSON)
+    public WebAsyncTask<Void> exportEvents(
+            @Parameter(description = "Filter by user ID") 
+            @RequestParam(required = false) Long userId,
+            @Parameter(description = "Filter by event type (VIEW, ADD_TO_CART, PURCHASE)") 
+            @RequestParam(required = false) String eventType,
+            @Parameter(description = "Filter by category") 
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Filter by product ID") 
+            @RequestParam(required = false) Long productId,
+            @Parameter(description = "Filter events from this date (ISO format)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Filter events until this date (ISO format)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) {
+        // Checked before streaming, so an invalid type is still a 400
+        EventType type = EventType.parseFilter(eventType);
+        response.setContentType(NDJSON);
+        // Runs on an async request thread after this method returns, with the export's own timeout
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            eventService.exportEvents(userId, type, category, productId, from, to, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+    
     @Operation(summary = "Get recent events", 
         description = "Get the latest 20 events from the in-memory queue (fast access, no database query)")
     @ApiResponses(value = {
@@ -120,19 +286,144 @@ public class EventController {
     }
     
     @Operation(summary = "Get event summary", 
-        description = "Get count of events grouped by event type from the in-memory queue (last 500 events). Optionally filter by category.")
+        description = "Get count of events grouped by event type, either from the in-memory queue (last 500 events), "
+            + "over a recent time window (up to 1h), or over any [from, to) date range, answered from hourly and daily "
+            + "rollups plus the raw events not rolled up yet. Optionally filter by category, and by product with from/to.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Event summary retrieved successfully",
             content = @Content(schema = @Schema(implementation = EventSummaryResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid window or date range",
+            content = @Content(schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
     })
     @GetMapping("/summary")
     public ResponseEntity<?> getEventSummary(
             @Parameter(description = "Optional category filter") 
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Optional time window, e.g. 1m, 5m or 1h") 
+            @RequestParam(required = false) String window,
+            @Parameter(description = "Count events from this date (ISO format, inclusive) instead of a window") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Count events until this date (ISO format, exclusive, default now); requires from") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Optional product ID filter; requires from") 
+            @RequestParam(required = false) Long productId) {
         try {
-            Map<String, Long> summary = eventService.getEventSummary(category);
+            Map<EventType, Long> summary;
+            if (from != null) {
+                if (window != null && !window.isEmpty()) {
+                    throw new IllegalArgumentException("Use either window or from/to, not both");
+                }
+                summary = eventService.getEventSummary(category, productId, from, to);
+            } else if (to != null || productId != null) {
+                throw new IllegalArgumentException("to and productId require from");
+            } else {
+                summary = eventService.getEventSummary(category, window);
+            }
             return ResponseEntity.ok(new EventSummaryResponse(summary));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
+        }
+    }
+    
+    @Operation(summary = "Get conversion funnel", 
+        description = "VIEW -> ADD_TO_CART -> PURCHASE conversion rates and approximate median time (within 2%) between steps per product or "
+            + "category over [from, to). A user enters a product's or category's funnel with their first VIEW and advances "
+            + "with the first ADD_TO_CART and then the first PURCHASE after it. Events are streamed, not loaded into memory.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Funnel computed successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = FunnelResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid groupBy, limit or date range",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @GetMapping("/funnel")
+    public ResponseEntity<?> getFunnel(
+            @Parameter(description = "Count events from this date (ISO format, inclusive)", required = true) 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Count events until this date (ISO format, exclusive, default now)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Group funnels by product or category (default category)") 
+            @RequestParam(required = false) String groupBy,
+            @Parameter(description = "Only events of this category") 
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Only events of this product") 
+            @RequestParam(required = false) Long productId,
+            @Parameter(description = "Number of groups listed, largest funnels first (default 100)") 
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(eventService.getFunnel(groupBy, category, productId, from, to, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
+        }
+    }
+    
+    @Operation(summary = "Get trending products", 
+        description = "Most frequent products of an event type over a recent sliding window, optionally within a category, "
+            + "from heavy-hitters summaries kept in memory on ingestion. Counts are exact while a window sees no more than "
+            + "events.trending.capacity distinct products; otherwise each true count lies in [minCount, count].")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Trending products retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = TrendingProductsResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid event type, window or limit",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingProducts(
+            @Parameter(description = "Event type to rank products by (VIEW, ADD_TO_CART, PURCHASE, default VIEW)") 
+            @RequestParam(required = false) String eventType,
+            @Parameter(description = "Only products of this category") 
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Sliding window, one of events.trending.windows (default 5m)") 
+            @RequestParam(required = false) String window,
+            @Parameter(description = "Number of products (default 10)") 
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(eventService.getTrendingProducts(eventType, category, window, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
+        }
+    }
+    
+    @Operation(summary = "Get approximate distinct users", 
+        description = "Approximate number of distinct users per day and over the days [from, to], optionally of one event type "
+            + "and category, from HyperLogLog sketches kept on ingestion. Each count comes with the bounds of its 95% confidence "
+            + "interval; the relative standard error is 1.6% at the default precision.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Distinct users estimated successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DistinctUsersResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid event type or date range",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token")
+    })
+    @GetMapping("/distinct-users")
+    public ResponseEntity<?> getDistinctUsers(
+            @Parameter(description = "First day (ISO date, inclusive, default to)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (ISO date, inclusive, default today)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only users with events of this type (VIEW, ADD_TO_CART, PURCHASE)") 
+            @RequestParam(required = false) String eventType,
+            @Parameter(description = "Only users with events of this category") 
+            @RequestParam(required = false) String category) {
+        try {
+            return ResponseEntity.ok(eventService.getDistinctUsers(eventType, category, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "BAD_REQUEST"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
@@ -140,7 +431,7 @@ public class EventController {
     }
     
     @Operation(summary = "Get cache statistics", 
-        description = "Get LRU cache statistics (cache size, max size) for testing purposes")
+        description = "Get search cache statistics: entries and cached rows against their limits, hit/miss/put/eviction/invalidation counts, hit ratio and average miss penalty")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.practical_test.dto.CacheStatsResponse.class))),
@@ -149,10 +440,11 @@ public class EventController {
     @GetMapping("/cache/stats")
     public ResponseEntity<?> getCacheStats() {
         try {
-            int cacheSize = eventService.getCacheSize();
-            int maxCacheSize = eventService.getMaxCacheSize();
-            String message = String.format("Cache contains %d/%d entries", cacheSize, maxCacheSize);
-            return ResponseEntity.ok(new com.example.practical_test.dto.CacheStatsResponse(cacheSize, maxCacheSize, message));
+            com.example.practical_test.dto.CacheStatsResponse stats = eventService.getCacheStats();
+            stats.setMessage(String.format("Cache contains %d/%d entries holding %d/%d rows, hit ratio %.2f",
+                    stats.getCacheSize(), stats.getMaxCacheSize(), stats.getCacheWeight(), stats.getMaxCacheWeight(),
+                    stats.getHitRatio()));
+            return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
@@ -169,11 +461,17 @@ public class EventController {
     public ResponseEntity<?> clearCache() {
         try {
             eventService.clearCache();
-            return ResponseEntity.ok(new com.example.practical_test.dto.CacheStatsResponse(0, 100, "Cache cleared successfully"));
+            return ResponseEntity.ok(new com.example.practical_test.dto.CacheStatsResponse(
+                    0, eventService.getMaxCacheSize(), 0, eventService.getMaxCacheWeight(), "Cache cleared successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new com.example.practical_test.dto.ErrorResponse(e.getMessage(), "INTERNAL_SERVER_ERROR"));
         }
     }
+    
+    private ResponseEntity<?> asyncIngestionDisabled() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new com.example.practical_test.dto.ErrorResponse(
+                    "Async ingestion is disabled (events.ingestion.async.enabled=false)", "SERVICE_UNAVAILABLE"));
+    }
 }
-
@@ -0,0 +1,30 @@
+package com.example.practical_test.dto;
+
+public class BulkLoadResponse {
+    private long loadedCount;
+    private long elapsedMillis;
+
+    public BulkLoadResponse() {
+    }
+
+    public BulkLoadResponse(long loadedCount, long elapsedMillis) {
+        this.loadedCount = loadedCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getLoadedCount() {
+        return loadedCount;
+    }
+
+    public void setLoadedCount(long loadedCount) {
+        this.loadedCount = loadedCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
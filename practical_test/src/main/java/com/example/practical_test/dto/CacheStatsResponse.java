@@ -3,6 +3,16 @@ package com.example.practical_test.dto;
 public class CacheStatsResponse {
     private int cacheSize;
     private int maxCacheSize;
+    private long cacheWeight;
+    private long maxCacheWeight;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long putCount;
+    private long evictionCount;
+    private long invalidationCount;
+    private long deduplicatedLoadCount;
+    private double averageLoadPenaltyMillis;
     private String message;
     
     public CacheStatsResponse() {
@@ -14,6 +24,14 @@ public class CacheStatsResponse {
         this.message = message;
     }
     
+    public CacheStatsResponse(int cacheSize, int maxCacheSize, long cacheWeight, long maxCacheWeight, String message) {
+        this.cacheSize = cacheSize;
+        this.maxCacheSize = maxCacheSize;
+        this.cacheWeight = cacheWeight;
+        this.maxCacheWeight = maxCacheWeight;
+        this.message = message;
+    }
+    
     public int getCacheSize() {
         return cacheSize;
     }
@@ -30,6 +48,86 @@ public class CacheStatsResponse {
         this.maxCacheSize = maxCacheSize;
     }
     
+    public long getCacheWeight() {
+        return cacheWeight;
+    }
+    
+    public void setCacheWeight(long cacheWeight) {
+        this.cacheWeight = cacheWeight;
+    }
+    
+    public long getMaxCacheWeight() {
+        return maxCacheWeight;
+    }
+    
+    public void setMaxCacheWeight(long maxCacheWeight) {
+        this.maxCacheWeight = maxCacheWeight;
+    }
+    
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+    
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+    
+    public double getHitRatio() {
+        return hitRatio;
+    }
+    
+    public void setHitRatio(double hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+    
+    public long getPutCount() {
+        return putCount;
+    }
+    
+    public void setPutCount(long putCount) {
+        this.putCount = putCount;
+    }
+    
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+    
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+    
+    public void setInvalidationCount(long invalidationCount) {
+        this.invalidationCount = invalidationCount;
+    }
+    
+    public long getDeduplicatedLoadCount() {
+        return deduplicatedLoadCount;
+    }
+    
+    public void setDeduplicatedLoadCount(long deduplicatedLoadCount) {
+        this.deduplicatedLoadCount = deduplicatedLoadCount;
+    }
+    
+    public double getAverageLoadPenaltyMillis() {
+        return averageLoadPenaltyMillis;
+    }
+    
+    public void setAverageLoadPenaltyMillis(double averageLoadPenaltyMillis) {
+        this.averageLoadPenaltyMillis = averageLoadPenaltyMillis;
+    }
+    
     public String getMessage() {
         return message;
     }
@@ -0,0 +1,55 @@
+package com.example.practical_test.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Approximate number of distinct users with its 95% confidence interval
+ */
+public class DistinctUserCount {
+    private LocalDate day;
+    private long estimate;
+    private long lowerBound;
+    private long upperBound;
+    
+    public DistinctUserCount() {
+    }
+    
+    public DistinctUserCount(LocalDate day, long estimate, long lowerBound, long upperBound) {
+        this.day = day;
+        this.estimate = estimate;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+    
+    public LocalDate getDay() {
+        return day;
+    }
+    
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+    
+    public long getEstimate() {
+        return estimate;
+    }
+    
+    public void setEstimate(long estimate) {
+        this.estimate = estimate;
+    }
+    
+    public long getLowerBound() {
+        return lowerBound;
+    }
+    
+    public void setLowerBound(long lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+    
+    public long getUpperBound() {
+        return upperBound;
+    }
+    
+    public void setUpperBound(long upperBound) {
+        this.upperBound = upperBound;
+    }
+}
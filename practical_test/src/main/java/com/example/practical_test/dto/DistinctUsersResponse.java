@@ -0,0 +1,75 @@
+package com.example.practical_test.dto;
+
+import com.example.practical_test.model.EventType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Approximate distinct users per day and over the whole [from, to] range
+ */
+public class DistinctUsersResponse {
+    private EventType eventType;
+    private String category;
+    private LocalDate from;
+    private LocalDate to;
+    private double relativeStandardError;
+    private DistinctUserCount total;
+    private List<DistinctUserCount> days;
+    
+    public EventType getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+    
+    public double getRelativeStandardError() {
+        return relativeStandardError;
+    }
+    
+    public void setRelativeStandardError(double relativeStandardError) {
+        this.relativeStandardError = relativeStandardError;
+    }
+    
+    public DistinctUserCount getTotal() {
+        return total;
+    }
+    
+    public void setTotal(DistinctUserCount total) {
+        this.total = total;
+    }
+    
+    public List<DistinctUserCount> getDays() {
+        return days;
+    }
+    
+    public void setDays(List<DistinctUserCount> days) {
+        this.days = days;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.practical_test.dto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position after the last event of a search page, in (timestamp desc, id desc) order
+ * Sent to clients as an opaque URL-safe token; the next page seeks past this
+ * position instead of skipping rows with OFFSET.
+ */
+public class EventCursor {
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final LocalDateTime timestamp;
+    private final Long id;
+    
+    public EventCursor(LocalDateTime timestamp, Long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+    
+    public static EventCursor after(EventResponse event) {
+        return new EventCursor(event.getTimestamp(), event.getId());
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp.getNano());
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+    
+    public static EventCursor decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            return new EventCursor(timestamp, buffer.getLong());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
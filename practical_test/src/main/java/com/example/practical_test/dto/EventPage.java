@@ -0,0 +1,35 @@
+package com.example.practical_test.dto;
+
+import java.util.List;
+
+public class EventPage {
+    private List<EventResponse> events;
+    private String nextCursor;
+    
+    public EventPage() {
+    }
+    
+    public EventPage(List<EventResponse> events, String nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<EventResponse> getEvents() {
+        return events;
+    }
+    
+    public void setEvents(List<EventResponse> events) {
+        this.events = events;
+    }
+    
+    /**
+     * Cursor of the following page, null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
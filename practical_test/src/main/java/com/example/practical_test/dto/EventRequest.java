@@ -1,5 +1,7 @@
 package com.example.practical_test.dto;
 
+import com.example.practical_test.model.EventType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -12,6 +14,10 @@ public class EventRequest {
     @NotBlank(message = "EventType is required")
     private String eventType;
     
+    // Parsed once when the request is read; null if eventType is not a type
+    @JsonIgnore
+    private EventType type;
+    
     private Long productId;
     
     private String category;
@@ -32,6 +38,11 @@ public class EventRequest {
     
     public void setEventType(String eventType) {
         this.eventType = eventType;
+        this.type = EventType.parse(eventType);
+    }
+    
+    public EventType getType() {
+        return type;
     }
     
     public Long getProductId() {
@@ -1,11 +1,13 @@
 package com.example.practical_test.dto;
 
+import com.example.practical_test.model.EventType;
+
 import java.time.LocalDateTime;
 
 public class EventResponse {
     private Long id;
     private Long userId;
-    private String eventType;
+    private EventType eventType;
     private Long productId;
     private String category;
     private LocalDateTime timestamp;
@@ -13,7 +15,7 @@ public class EventResponse {
     public EventResponse() {
     }
     
-    public EventResponse(Long id, Long userId, String eventType, Long productId, String category, LocalDateTime timestamp) {
+    public EventResponse(Long id, Long userId, EventType eventType, Long productId, String category, LocalDateTime timestamp) {
         this.id = id;
         this.userId = userId;
         this.eventType = eventType;
@@ -38,11 +40,11 @@ public class EventResponse {
         this.userId = userId;
     }
     
-    public String getEventType() {
+    public EventType getEventType() {
         return eventType;
     }
     
-    public void setEventType(String eventType) {
+    public void setEventType(EventType eventType) {
         this.eventType = eventType;
     }
     
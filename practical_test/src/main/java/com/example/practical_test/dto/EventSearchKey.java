@@ -1,37 +1,62 @@
 package com.example.practical_test.dto;
 
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
  * Key object for caching event search results
- * Used as cache key for LRU cache
+ * Used as cache key for the search cache. maxRows is the number of leading
+ * rows the search returns, 0 for all of them.
  */
 public class EventSearchKey {
     private Long userId;
-    private String eventType;
+    private EventType eventType;
     private String category;
     private Long productId;
     private LocalDateTime from;
     private LocalDateTime to;
+    private int maxRows;
     
-    public EventSearchKey(Long userId, String eventType, String category, 
+    public EventSearchKey(Long userId, EventType eventType, String category, 
                          Long productId, LocalDateTime from, LocalDateTime to) {
+        this(userId, eventType, category, productId, from, to, 0);
+    }
+    
+    public EventSearchKey(Long userId, EventType eventType, String category, 
+                         Long productId, LocalDateTime from, LocalDateTime to, int maxRows) {
         this.userId = userId;
         this.eventType = eventType;
         this.category = category;
         this.productId = productId;
         this.from = from;
         this.to = to;
+        this.maxRows = maxRows;
     }
     
     // Getters
     public Long getUserId() { return userId; }
-    public String getEventType() { return eventType; }
+    public EventType getEventType() { return eventType; }
     public String getCategory() { return category; }
     public Long getProductId() { return productId; }
     public LocalDateTime getFrom() { return from; }
     public LocalDateTime getTo() { return to; }
+    public int getMaxRows() { return maxRows; }
+    
+    /**
+     * Check whether an event satisfies this search, using the same rules as
+     * EventRepositoryImpl.findEventsWithFilters (null or empty strings mean no filter)
+     */
+    public boolean matches(Event event) {
+        return (userId == null || userId.equals(event.getUserId())) &&
+               (eventType == null || eventType == event.getEventType()) &&
+               (category == null || category.isEmpty() || category.equals(event.getCategory())) &&
+               (productId == null || productId.equals(event.getProductId())) &&
+               (from == null || !event.getTimestamp().isBefore(from)) &&
+               (to == null || !event.getTimestamp().isAfter(to));
+    }
     
     @Override
     public boolean equals(Object o) {
@@ -43,12 +68,13 @@ public class EventSearchKey {
                Objects.equals(category, that.category) &&
                Objects.equals(productId, that.productId) &&
                Objects.equals(from, that.from) &&
-               Objects.equals(to, that.to);
+               Objects.equals(to, that.to) &&
+               maxRows == that.maxRows;
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(userId, eventType, category, productId, from, to);
+        return Objects.hash(userId, eventType, category, productId, from, to, maxRows);
     }
 }
 
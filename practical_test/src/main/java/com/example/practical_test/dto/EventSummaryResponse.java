@@ -1,22 +1,24 @@
 package com.example.practical_test.dto;
 
+import com.example.practical_test.model.EventType;
+
 import java.util.Map;
 
 public class EventSummaryResponse {
-    private Map<String, Long> summary;
+    private Map<EventType, Long> summary;
     
     public EventSummaryResponse() {
     }
     
-    public EventSummaryResponse(Map<String, Long> summary) {
+    public EventSummaryResponse(Map<EventType, Long> summary) {
         this.summary = summary;
     }
     
-    public Map<String, Long> getSummary() {
+    public Map<EventType, Long> getSummary() {
         return summary;
     }
     
-    public void setSummary(Map<String, Long> summary) {
+    public void setSummary(Map<EventType, Long> summary) {
         this.summary = summary;
     }
 }
@@ -0,0 +1,70 @@
+package com.example.practical_test.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class FunnelResponse {
+    private String groupBy;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long eventCount;
+    private int groupCount;
+    private FunnelStepsResponse overall;
+    private List<FunnelStepsResponse> groups;
+    
+    public String getGroupBy() {
+        return groupBy;
+    }
+    
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+    
+    public LocalDateTime getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+    
+    public LocalDateTime getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+    
+    public long getEventCount() {
+        return eventCount;
+    }
+    
+    public void setEventCount(long eventCount) {
+        this.eventCount = eventCount;
+    }
+    
+    public int getGroupCount() {
+        return groupCount;
+    }
+    
+    public void setGroupCount(int groupCount) {
+        this.groupCount = groupCount;
+    }
+    
+    public FunnelStepsResponse getOverall() {
+        return overall;
+    }
+    
+    public void setOverall(FunnelStepsResponse overall) {
+        this.overall = overall;
+    }
+    
+    public List<FunnelStepsResponse> getGroups() {
+        return groups;
+    }
+    
+    public void setGroups(List<FunnelStepsResponse> groups) {
+        this.groups = groups;
+    }
+}
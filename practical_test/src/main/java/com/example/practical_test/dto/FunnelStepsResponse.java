@@ -0,0 +1,85 @@
+package com.example.practical_test.dto;
+
+public class FunnelStepsResponse {
+    private String key;
+    private long viewed;
+    private long addedToCart;
+    private long purchased;
+    private double viewToCartRate;
+    private double cartToPurchaseRate;
+    private double viewToPurchaseRate;
+    private Double medianViewToCartSeconds;
+    private Double medianCartToPurchaseSeconds;
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public long getViewed() {
+        return viewed;
+    }
+    
+    public void setViewed(long viewed) {
+        this.viewed = viewed;
+    }
+    
+    public long getAddedToCart() {
+        return addedToCart;
+    }
+    
+    public void setAddedToCart(long addedToCart) {
+        this.addedToCart = addedToCart;
+    }
+    
+    public long getPurchased() {
+        return purchased;
+    }
+    
+    public void setPurchased(long purchased) {
+        this.purchased = purchased;
+    }
+    
+    public double getViewToCartRate() {
+        return viewToCartRate;
+    }
+    
+    public void setViewToCartRate(double viewToCartRate) {
+        this.viewToCartRate = viewToCartRate;
+    }
+    
+    public double getCartToPurchaseRate() {
+        return cartToPurchaseRate;
+    }
+    
+    public void setCartToPurchaseRate(double cartToPurchaseRate) {
+        this.cartToPurchaseRate = cartToPurchaseRate;
+    }
+    
+    public double getViewToPurchaseRate() {
+        return viewToPurchaseRate;
+    }
+    
+    public void setViewToPurchaseRate(double viewToPurchaseRate) {
+        this.viewToPurchaseRate = viewToPurchaseRate;
+    }
+    
+    public Double getMedianViewToCartSeconds() {
+        return medianViewToCartSeconds;
+    }
+    
+    public void setMedianViewToCartSeconds(Double medianViewToCartSeconds) {
+        this.medianViewToCartSeconds = medianViewToCartSeconds;
+    }
+    
+    public Double getMedianCartToPurchaseSeconds() {
+        return medianCartToPurchaseSeconds;
+    }
+    
+    public void setMedianCartToPurchaseSeconds(Double medianCartToPurchaseSeconds) {
+        this.medianCartToPurchaseSeconds = medianCartToPurchaseSeconds;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.practical_test.dto;
+
+public class IngestionStatsResponse {
+    private int bufferDepth;
+    private int bufferCapacity;
+    private long acceptedCount;
+    private long rejectedCount;
+    private long failedCount;
+    private long retryCount;
+    private long flushedCount;
+    private long flushCount;
+    private double averageFlushMillis;
+    private double maxFlushMillis;
+    
+    public IngestionStatsResponse() {
+    }
+    
+    public IngestionStatsResponse(int bufferDepth, int bufferCapacity, long acceptedCount, long rejectedCount,
+                                  long failedCount, long retryCount, long flushedCount, long flushCount,
+                                  double averageFlushMillis, double maxFlushMillis) {
+        this.bufferDepth = bufferDepth;
+        this.bufferCapacity = bufferCapacity;
+        this.acceptedCount = acceptedCount;
+        this.rejectedCount = rejectedCount;
+        this.failedCount = failedCount;
+        this.retryCount = retryCount;
+        this.flushedCount = flushedCount;
+        this.flushCount = flushCount;
+        this.averageFlushMillis = averageFlushMillis;
+        this.maxFlushMillis = maxFlushMillis;
+    }
+    
+    public int getBufferDepth() {
+        return bufferDepth;
+    }
+    
+    public void setBufferDepth(int bufferDepth) {
+        this.bufferDepth = bufferDepth;
+    }
+    
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+    
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+    
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+    
+    public void setAcceptedCount(long acceptedCount) {
+        this.acceptedCount = acceptedCount;
+    }
+    
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+    
+    public void setRejectedCount(long rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+    
+    public long getFailedCount() {
+        return failedCount;
+    }
+    
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+    
+    public long getRetryCount() {
+        return retryCount;
+    }
+    
+    public void setRetryCount(long retryCount) {
+        this.retryCount = retryCount;
+    }
+    
+    public long getFlushedCount() {
+        return flushedCount;
+    }
+    
+    public void setFlushedCount(long flushedCount) {
+        this.flushedCount = flushedCount;
+    }
+    
+    public long getFlushCount() {
+        return flushCount;
+    }
+    
+    public void setFlushCount(long flushCount) {
+        this.flushCount = flushCount;
+    }
+    
+    public double getAverageFlushMillis() {
+        return averageFlushMillis;
+    }
+    
+    public void setAverageFlushMillis(double averageFlushMillis) {
+        this.averageFlushMillis = averageFlushMillis;
+    }
+    
+    public double getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+    
+    public void setMaxFlushMillis(double maxFlushMillis) {
+        this.maxFlushMillis = maxFlushMillis;
+    }
+}
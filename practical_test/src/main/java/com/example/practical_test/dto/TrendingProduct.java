@@ -0,0 +1,43 @@
+package com.example.practical_test.dto;
+
+/**
+ * A product's event count in a window: the true count lies in [minCount, count]
+ */
+public class TrendingProduct {
+    private long productId;
+    private long count;
+    private long minCount;
+    
+    public TrendingProduct() {
+    }
+    
+    public TrendingProduct(long productId, long count, long minCount) {
+        this.productId = productId;
+        this.count = count;
+        this.minCount = minCount;
+    }
+    
+    public long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(long productId) {
+        this.productId = productId;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public long getMinCount() {
+        return minCount;
+    }
+    
+    public void setMinCount(long minCount) {
+        this.minCount = minCount;
+    }
+}
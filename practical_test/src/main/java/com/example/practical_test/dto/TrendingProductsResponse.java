@@ -0,0 +1,54 @@
+package com.example.practical_test.dto;
+
+import com.example.practical_test.model.EventType;
+
+import java.util.List;
+
+public class TrendingProductsResponse {
+    private EventType eventType;
+    private String category;
+    private String window;
+    private List<TrendingProduct> products;
+    
+    public TrendingProductsResponse() {
+    }
+    
+    public TrendingProductsResponse(EventType eventType, String category, String window, List<TrendingProduct> products) {
+        this.eventType = eventType;
+        this.category = category;
+        this.window = window;
+        this.products = products;
+    }
+    
+    public EventType getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public String getWindow() {
+        return window;
+    }
+    
+    public void setWindow(String window) {
+        this.window = window;
+    }
+    
+    public List<TrendingProduct> getProducts() {
+        return products;
+    }
+    
+    public void setProducts(List<TrendingProduct> products) {
+        this.products = products;
+    }
+}
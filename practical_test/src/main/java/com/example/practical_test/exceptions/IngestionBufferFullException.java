@@ -0,0 +1,7 @@
+package com.example.practical_test.exceptions;
+
+public class IngestionBufferFullException extends RuntimeException {
+    public IngestionBufferFullException(String message) {
+        super(message);
+    }
+}
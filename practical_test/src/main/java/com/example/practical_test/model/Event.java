@@ -1,21 +1,30 @@
 package com.example.practical_test.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
+// Table and indexes are created by the Flyway migrations in db/migration
 @Entity
 @Table(name = "events")
 public class Event {
+    // Pooled sequence (instead of IDENTITY) so Hibernate can pre-allocate ids
+    // and group inserts into JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
     private Long userId;
     
+    // Stored as the ordinal in a SMALLINT column
     @Column(nullable = false)
-    private String eventType; // VIEW, ADD_TO_CART, PURCHASE
+    @Enumerated(EnumType.ORDINAL)
+    @JdbcTypeCode(SqlTypes.SMALLINT)
+    private EventType eventType;
     
     private Long productId; // Optional
     
@@ -27,7 +36,7 @@ public class Event {
     public Event() {
     }
     
-    public Event(Long id, Long userId, String eventType, Long productId, String category, LocalDateTime timestamp) {
+    public Event(Long id, Long userId, EventType eventType, Long productId, String category, LocalDateTime timestamp) {
         this.id = id;
         this.userId = userId;
         this.eventType = eventType;
@@ -52,11 +61,11 @@ public class Event {
         this.userId = userId;
     }
     
-    public String getEventType() {
+    public EventType getEventType() {
         return eventType;
     }
     
-    public void setEventType(String eventType) {
+    public void setEventType(EventType eventType) {
         this.eventType = eventType;
     }
     
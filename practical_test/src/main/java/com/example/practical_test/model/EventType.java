@@ -0,0 +1,80 @@
+package com.example.practical_test.model;
+
+/**
+ * Type of an event, stored as its ordinal (SMALLINT event_type columns, see
+ * V6) and used as an array index by the in-memory counters: new types must
+ * only ever be appended.
+ */
+public enum EventType {
+    VIEW,
+    ADD_TO_CART,
+    PURCHASE;
+
+    public static final String INVALID_MESSAGE = "Invalid event type. Must be VIEW, ADD_TO_CART, or PURCHASE (case-insensitive)";
+
+    // values() copies its array on every call
+    private static final EventType[] VALUES = values();
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public static EventType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Parse a type ignoring case and surrounding whitespace, without allocating
+     * @return the type, or null if the text is null, blank or not a type
+     */
+    public static EventType parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        for (EventType type : VALUES) {
+            if (type.matches(text, start, end)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse an optional filter value
+     * @return the type, or null when the value is null or blank
+     * @throws IllegalArgumentException if the value is not a type
+     */
+    public static EventType parseFilter(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        EventType type = parse(text);
+        if (type == null) {
+            throw new IllegalArgumentException(INVALID_MESSAGE);
+        }
+        return type;
+    }
+
+    private boolean matches(CharSequence text, int start, int end) {
+        String name = name();
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = text.charAt(start + i);
+            // Names are upper-case ASCII, so only ASCII letters are folded
+            if (c != name.charAt(i) && (c < 'a' || c > 'z' || c - ('a' - 'A') != name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
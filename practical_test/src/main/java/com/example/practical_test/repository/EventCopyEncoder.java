@@ -0,0 +1,83 @@
+package com.example.practical_test.repository;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Writes events in the PostgreSQL binary COPY format, for
+ * {@code COPY events (id, user_id, event_type, product_id, category, timestamp) FROM STDIN (FORMAT binary)}.
+ * Binary rows skip the text parsing of every value on the server side.
+ */
+public final class EventCopyEncoder {
+    public static final String COPY_SQL = "COPY events (id, user_id, event_type, product_id, category, timestamp) "
+            + "FROM STDIN (FORMAT binary)";
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short COLUMNS = 6;
+    // PostgreSQL timestamps count microseconds from 2000-01-01 00:00
+    private static final long POSTGRES_EPOCH_SECOND = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private EventCopyEncoder() {
+    }
+
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags: no OIDs
+        out.writeInt(0); // header extension length
+    }
+
+    public static void writeRow(DataOutputStream out, Event event) throws IOException {
+        out.writeShort(COLUMNS);
+        writeBigint(out, event.getId());
+        writeBigint(out, event.getUserId());
+        writeSmallint(out, event.getEventType());
+        writeBigint(out, event.getProductId());
+        writeText(out, event.getCategory());
+        writeTimestamp(out, event.getTimestamp());
+    }
+
+    public static void writeTrailer(DataOutputStream out) throws IOException {
+        out.writeShort(-1);
+    }
+
+    static long toPostgresMicros(LocalDateTime timestamp) {
+        long seconds = timestamp.toEpochSecond(ZoneOffset.UTC) - POSTGRES_EPOCH_SECOND;
+        return seconds * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static void writeBigint(DataOutputStream out, Long value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    // event_type holds the ordinal (V6)
+    private static void writeSmallint(DataOutputStream out, EventType value) throws IOException {
+        out.writeInt(2);
+        out.writeShort(value.ordinal());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(toPostgresMicros(value));
+    }
+}
@@ -1,22 +1,37 @@
 package com.example.practical_test.repository;
 
+import com.example.practical_test.dto.EventResponse;
 import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
-    List<Event> findByUserId(Long userId);
+    // Read paths project into EventResponse instead of loading managed entities
+    String PROJECTION = "select new com.example.practical_test.dto.EventResponse("
+            + "e.id, e.userId, e.eventType, e.productId, e.category, e.timestamp) from Event e ";
+    String ORDER = " order by e.timestamp desc, e.id desc";
     
-    List<Event> findByEventType(String eventType);
+    @Transactional(readOnly = true)
+    @Query(PROJECTION + "where e.userId = :userId" + ORDER)
+    List<EventResponse> findByUserId(@Param("userId") Long userId);
     
-    List<Event> findByCategory(String category);
+    @Transactional(readOnly = true)
+    @Query(PROJECTION + "where e.eventType = :eventType" + ORDER)
+    List<EventResponse> findByEventType(@Param("eventType") EventType eventType);
     
-    List<Event> findByProductId(Long productId);
+    @Transactional(readOnly = true)
+    @Query(PROJECTION + "where e.category = :category" + ORDER)
+    List<EventResponse> findByCategory(@Param("category") String category);
+    
+    @Transactional(readOnly = true)
+    @Query(PROJECTION + "where e.productId = :productId" + ORDER)
+    List<EventResponse> findByProductId(@Param("productId") Long productId);
 }
 
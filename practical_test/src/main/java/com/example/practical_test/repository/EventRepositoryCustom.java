@@ -1,12 +1,56 @@
 package com.example.practical_test.repository;
 
+import com.example.practical_test.dto.EventResponse;
 import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EventRepositoryCustom {
-    List<Event> findEventsWithFilters(Long userId, String eventType, String category, 
-                                     Long productId, LocalDateTime from, LocalDateTime to);
+    List<EventResponse> findEventsWithFilters(Long userId, EventType eventType, String category, 
+                                             Long productId, LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * One page of a search: at most maxRows events ordered by (timestamp desc, id desc),
+     * starting after the given position (null for the first page)
+     */
+    List<EventResponse> findEventsPage(Long userId, EventType eventType, String category, Long productId,
+                                       LocalDateTime from, LocalDateTime to,
+                                       LocalDateTime afterTimestamp, Long afterId, int maxRows);
+    
+    /**
+     * Pass every matching event, newest first, to the action while reading
+     * through a forward-only cursor of fetchSize rows
+     * @return number of events
+     */
+    long forEachEventWithFilters(Long userId, EventType eventType, String category, Long productId,
+                                 LocalDateTime from, LocalDateTime to, int fetchSize, Consumer<EventResponse> action);
+    
+    /**
+     * Pass every event with a timestamp in [from, to) to the action, grouped by
+     * user and oldest first within a user, while reading through a forward-only cursor
+     * @return number of events
+     */
+    long forEachEventByUser(LocalDateTime from, LocalDateTime to, String category, Long productId,
+                            int fetchSize, Consumer<EventResponse> action);
+    
+    /**
+     * Number of events per event type with a timestamp in [from, to)
+     */
+    Map<EventType, Long> countByEventType(LocalDateTime from, LocalDateTime to, String category, Long productId);
+    
+    /**
+     * Insert all events in a single transaction using JDBC statement batching
+     */
+    List<Event> insertBatch(List<Event> events);
+    
+    /**
+     * Assign ids from events_seq and write the events with one binary COPY
+     * (batched inserts on databases other than PostgreSQL). Joins the caller's
+     * transaction, so several calls can make up one bulk load.
+     */
+    List<Event> copyBatch(List<Event> events);
 }
-
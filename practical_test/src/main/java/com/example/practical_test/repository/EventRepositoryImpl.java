@@ -1,6 +1,8 @@
 package com.example.practical_test.repository;
 
+import com.example.practical_test.dto.EventResponse;
 import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
@@ -8,11 +10,28 @@ import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 public class EventRepositoryImpl implements EventRepositoryCustom {
@@ -20,19 +39,137 @@ public class EventRepositoryImpl implements EventRepositoryCustom {
     @PersistenceContext
     private EntityManager entityManager;
     
+    // allocationSize of the events_seq generator (and INCREMENT BY of the sequence)
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    // Must match hibernate.jdbc.batch_size so every flush sends full JDBC batches
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<EventResponse> findEventsWithFilters(Long userId, EventType eventType, String category, 
+                                                     Long productId, LocalDateTime from, LocalDateTime to) {
+        return findEventsPage(userId, eventType, category, productId, from, to, null, null, 0);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<EventResponse> findEventsPage(Long userId, EventType eventType, String category, Long productId,
+                                              LocalDateTime from, LocalDateTime to,
+                                              LocalDateTime afterTimestamp, Long afterId, int maxRows) {
+        TypedQuery<EventResponse> typedQuery = entityManager.createQuery(
+                buildSearch(userId, eventType, category, productId, from, to, afterTimestamp, afterId));
+        if (maxRows > 0) {
+            typedQuery.setMaxResults(maxRows);
+        }
+        return typedQuery.getResultList();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachEventWithFilters(Long userId, EventType eventType, String category, Long productId,
+                                        LocalDateTime from, LocalDateTime to, int fetchSize,
+                                        Consumer<EventResponse> action) {
+        @SuppressWarnings("unchecked")
+        Query<EventResponse> query = entityManager.createQuery(
+                buildSearch(userId, eventType, category, productId, from, to, null, null)).unwrap(Query.class);
+        return scroll(query, fetchSize, action);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachEventByUser(LocalDateTime from, LocalDateTime to, String category, Long productId,
+                                   int fetchSize, Consumer<EventResponse> action) {
+        StringBuilder jpql = new StringBuilder(EventRepository.PROJECTION
+                + "where e.timestamp >= :from and e.timestamp < :to");
+        if (category != null) {
+            jpql.append(" and e.category = :category");
+        }
+        if (productId != null) {
+            jpql.append(" and e.productId = :productId");
+        }
+        // A backward scan of the (user_id, timestamp desc, id desc) index, so rows arrive without a sort
+        jpql.append(" order by e.userId desc, e.timestamp, e.id");
+        
+        @SuppressWarnings("unchecked")
+        Query<EventResponse> query = entityManager.createQuery(jpql.toString(), EventResponse.class).unwrap(Query.class);
+        query.setParameter("from", from);
+        query.setParameter("to", to);
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        if (productId != null) {
+            query.setParameter("productId", productId);
+        }
+        return scroll(query, fetchSize, action);
+    }
+    
+    private static long scroll(Query<EventResponse> query, int fetchSize, Consumer<EventResponse> action) {
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        
+        long count = 0;
+        // Forward-only: the driver fetches fetchSize rows at a time instead of the whole result.
+        // Rows are projected, so nothing accumulates in the persistence context.
+        try (ScrollableResults<EventResponse> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                action.accept(rows.get());
+                count++;
+            }
+        }
+        return count;
+    }
+    
     @Override
-    public List<Event> findEventsWithFilters(Long userId, String eventType, String category, 
-                                             Long productId, LocalDateTime from, LocalDateTime to) {
+    @Transactional(readOnly = true)
+    public Map<EventType, Long> countByEventType(LocalDateTime from, LocalDateTime to, String category, Long productId) {
+        StringBuilder jpql = new StringBuilder("select e.eventType, count(e) from Event e "
+                + "where e.timestamp >= :from and e.timestamp < :to");
+        if (category != null) {
+            jpql.append(" and e.category = :category");
+        }
+        if (productId != null) {
+            jpql.append(" and e.productId = :productId");
+        }
+        jpql.append(" group by e.eventType");
+        
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        if (productId != null) {
+            query.setParameter("productId", productId);
+        }
+        Map<EventType, Long> counts = new EnumMap<>(EventType.class);
+        for (Object[] row : query.getResultList()) {
+            counts.put((EventType) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+    
+    /**
+     * Search projected straight into EventResponse: no managed entities,
+     * no dirty-checking snapshots, no copy in the service
+     */
+    private CriteriaQuery<EventResponse> buildSearch(Long userId, EventType eventType, String category, Long productId,
+                                                     LocalDateTime from, LocalDateTime to,
+                                                     LocalDateTime afterTimestamp, Long afterId) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Event> query = cb.createQuery(Event.class);
+        CriteriaQuery<EventResponse> query = cb.createQuery(EventResponse.class);
         Root<Event> event = query.from(Event.class);
+        query.select(cb.construct(EventResponse.class, event.get("id"), event.get("userId"), event.get("eventType"),
+                event.get("productId"), event.get("category"), event.get("timestamp")));
         
         List<Predicate> predicates = new ArrayList<>();
         
         if (userId != null) {
             predicates.add(cb.equal(event.get("userId"), userId));
         }
-        if (eventType != null && !eventType.isEmpty()) {
+        if (eventType != null) {
             predicates.add(cb.equal(event.get("eventType"), eventType));
         }
         if (category != null && !category.isEmpty()) {
@@ -47,12 +184,89 @@ public class EventRepositoryImpl implements EventRepositoryCustom {
         if (to != null) {
             predicates.add(cb.lessThanOrEqualTo(event.get("timestamp"), to));
         }
+        if (afterTimestamp != null) {
+            // Seek past the previous page: (timestamp, id) < (afterTimestamp, afterId)
+            // The plain timestamp bound lets the planner use the index range before the tie-break
+            predicates.add(cb.lessThanOrEqualTo(event.get("timestamp"), afterTimestamp));
+            predicates.add(cb.or(
+                    cb.lessThan(event.get("timestamp"), afterTimestamp),
+                    cb.and(cb.equal(event.get("timestamp"), afterTimestamp), cb.lessThan(event.get("id"), afterId))));
+        }
         
         query.where(predicates.toArray(new Predicate[0]));
-        query.orderBy(cb.desc(event.get("timestamp")));
-        
-        TypedQuery<Event> typedQuery = entityManager.createQuery(query);
-        return typedQuery.getResultList();
+        // id breaks timestamp ties so the order is stable (the search cache and cursors rely on it)
+        query.orderBy(cb.desc(event.get("timestamp")), cb.desc(event.get("id")));
+        return query;
+    }
+    
+    @Override
+    @Transactional
+    public List<Event> insertBatch(List<Event> events) {
+        for (int i = 0; i < events.size(); i++) {
+            entityManager.persist(events.get(i));
+            
+            // Flush and detach every full batch to keep the persistence context small
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return events;
+    }
+    
+    @Override
+    @Transactional
+    public List<Event> copyBatch(List<Event> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        if (!session.doReturningWork(connection -> connection.isWrapperFor(PGConnection.class))) {
+            return insertBatch(events);
+        }
+        session.doWork(connection -> {
+            assignIds(connection, events);
+            PGCopyOutputStream copy = new PGCopyOutputStream(
+                    connection.unwrap(PGConnection.class), EventCopyEncoder.COPY_SQL, COPY_BUFFER_SIZE);
+            try {
+                DataOutputStream out = new DataOutputStream(copy);
+                EventCopyEncoder.writeHeader(out);
+                for (Event event : events) {
+                    EventCopyEncoder.writeRow(out, event);
+                }
+                EventCopyEncoder.writeTrailer(out);
+                out.flush();
+                copy.endCopy();
+            } catch (IOException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw new SQLException("COPY into events failed", e);
+            }
+        });
+        return events;
+    }
+    
+    /**
+     * Reserve ids the way Hibernate's pooled-lo optimizer does: every sequence
+     * value N stands for ids N..N+49, so these never collide with entity inserts
+     */
+    private void assignIds(Connection connection, List<Event> events) throws SQLException {
+        int blocks = (events.size() + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT nextval('events_seq') FROM generate_series(1, ?)")) {
+            statement.setInt(1, blocks);
+            try (ResultSet values = statement.executeQuery()) {
+                int next = 0;
+                while (values.next() && next < events.size()) {
+                    long low = values.getLong(1);
+                    for (int i = 0; i < ID_ALLOCATION_SIZE && next < events.size(); i++) {
+                        events.get(next++).setId(low + i);
+                    }
+                }
+            }
+        }
     }
 }
-
@@ -0,0 +1,147 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.cache.DistinctUserSketches;
+import com.example.practical_test.cache.HyperLogLog;
+import com.example.practical_test.model.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares the distinct-user sketches across nodes through the
+ * event_user_sketches table (see migration V5). Every interval-ms the sketches
+ * that changed on this node are merged into their rows; queries merge the
+ * stored rows with the local sketches. Merging takes register maxima, so a
+ * sketch written twice, or by a node that restarted, is counted correctly.
+ */
+@Service
+@ConditionalOnProperty(name = "events.distinct-users.store.enabled", havingValue = "true")
+public class DistinctUserSketchStore {
+    private static final Logger logger = LoggerFactory.getLogger(DistinctUserSketchStore.class);
+
+    private static final String INSERT =
+            "INSERT INTO event_user_sketches (bucket, event_type, category, registers) VALUES (?, ?, ?, ?)"
+            + " ON CONFLICT (bucket, event_type, category) DO NOTHING";
+    private static final String SELECT_FOR_UPDATE =
+            "SELECT registers FROM event_user_sketches"
+            + " WHERE bucket = ? AND event_type = ? AND category IS NOT DISTINCT FROM ? FOR UPDATE";
+    private static final String UPDATE =
+            "UPDATE event_user_sketches SET registers = ?"
+            + " WHERE bucket = ? AND event_type = ? AND category IS NOT DISTINCT FROM ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Clock clock;
+
+    // Stored sketches are dropped with the event partitions they describe (0 keeps everything)
+    @Value("${events.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    private volatile DistinctUserSketches sketches;
+
+    /**
+     * Set the sketches written by {@link #flush()}
+     */
+    public void track(DistinctUserSketches sketches) {
+        this.sketches = sketches;
+    }
+
+    @Scheduled(fixedDelayString = "${events.distinct-users.store.interval-ms:60000}")
+    public void flush() {
+        DistinctUserSketches tracked = sketches;
+        if (tracked == null) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int[] written = {0};
+        tracked.forEachChanged((key, sketch) -> {
+            try {
+                // One short transaction per row: nodes flushing the same rows never wait on each other for long
+                transaction.executeWithoutResult(status -> merge(key, sketch));
+                written[0]++;
+            } catch (RuntimeException e) {
+                // Marked again so the next flush retries it
+                logger.warn("Failed to store distinct-user sketch {}: {}", key, e.getMessage());
+                tracked.markChanged(key);
+            }
+        });
+        if (written[0] > 0) {
+            logger.debug("Stored {} distinct-user sketch(es)", written[0]);
+        }
+    }
+
+    /**
+     * Merge the stored sketches of each day in [from, to] into target, by day
+     * @param eventType event type to include, or null for all
+     * @param category category to include, or null for all
+     */
+    public void mergeInto(Map<LocalDate, HyperLogLog> target, LocalDate from, LocalDate to,
+                          EventType eventType, String category) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT bucket, registers FROM event_user_sketches WHERE bucket >= ? AND bucket <= ?");
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (eventType != null) {
+            sql.append(" AND event_type = ?");
+            args.add((short) eventType.ordinal());
+        }
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        jdbcTemplate.query(sql.toString(), row -> {
+            HyperLogLog stored = HyperLogLog.fromByteArray(row.getBytes(2));
+            HyperLogLog day = target.get(row.getObject(1, LocalDate.class));
+            if (day != null && day.precision() == stored.precision()) {
+                day.merge(stored);
+            }
+        }, args.toArray());
+    }
+
+    @Scheduled(cron = "${events.distinct-users.store.cleanup-cron:0 30 0 * * *}")
+    public void deleteExpired() {
+        if (retentionMonths > 0) {
+            LocalDate cutoff = EventPartitionMaintenance.retentionCutoff(LocalDate.now(clock), retentionMonths).toLocalDate();
+            int deleted = jdbcTemplate.update("DELETE FROM event_user_sketches WHERE bucket < ?", cutoff);
+            if (deleted > 0) {
+                logger.info("Deleted {} distinct-user sketch(es) before {}", deleted, cutoff);
+            }
+        }
+    }
+
+    private void merge(DistinctUserSketches.SketchKey key, HyperLogLog sketch) {
+        byte[] registers = sketch.toByteArray();
+        // event_type holds the ordinal (V6)
+        short type = (short) key.eventType().ordinal();
+        if (jdbcTemplate.update(INSERT, key.day(), type, key.category(), registers) > 0) {
+            return;
+        }
+        // The row exists: merge under its row lock, so concurrent writers do not lose registers
+        byte[] current = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, byte[].class,
+                key.day(), type, key.category());
+        HyperLogLog stored = HyperLogLog.fromByteArray(current);
+        if (stored.precision() != sketch.precision()) {
+            // The precision was changed: keep the sketch of the current configuration
+            jdbcTemplate.update(UPDATE, registers, key.day(), type, key.category());
+        } else if (stored.merge(sketch)) {
+            jdbcTemplate.update(UPDATE, stored.toByteArray(), key.day(), type, key.category());
+        }
+    }
+}
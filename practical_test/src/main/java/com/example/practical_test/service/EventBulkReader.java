@@ -0,0 +1,150 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming readers for bulk load bodies (POST /events/bulk).
+ * Requests are parsed one at a time while the body is read, so a load never
+ * holds more than the current request in memory.
+ */
+public final class EventBulkReader {
+    private static final int CSV_COLUMNS = 5;
+
+    private EventBulkReader() {
+    }
+
+    /**
+     * One JSON event object per line
+     */
+    public static Iterator<EventRequest> ndjson(JsonMapper jsonMapper, InputStream in) {
+        return jsonMapper.readerFor(EventRequest.class).readValues(in);
+    }
+
+    /**
+     * Lines of {@code userId,eventType,productId,category,timestamp} with an optional
+     * header line; empty fields are null, fields may be double-quoted
+     */
+    public static Iterator<EventRequest> csv(InputStream in) {
+        return new CsvIterator(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    private static final class CsvIterator implements Iterator<EventRequest> {
+        private final BufferedReader reader;
+        private EventRequest next;
+        private long lineNumber;
+
+        private CsvIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readNext();
+            }
+            return next != null;
+        }
+
+        @Override
+        public EventRequest next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            EventRequest request = next;
+            next = null;
+            return request;
+        }
+
+        private EventRequest readNext() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    List<String> fields = split(line);
+                    if (lineNumber == 1 && "userId".equalsIgnoreCase(fields.get(0))) {
+                        continue;
+                    }
+                    return toRequest(fields);
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private EventRequest toRequest(List<String> fields) {
+            if (fields.size() != CSV_COLUMNS) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected " + CSV_COLUMNS
+                        + " columns (userId,eventType,productId,category,timestamp), got " + fields.size());
+            }
+            try {
+                EventRequest request = new EventRequest();
+                request.setUserId(parseLong(fields.get(0)));
+                request.setEventType(fields.get(1));
+                request.setProductId(parseLong(fields.get(2)));
+                request.setCategory(fields.get(3));
+                request.setTimestamp(fields.get(4) != null ? LocalDateTime.parse(fields.get(4)) : null);
+                return request;
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+
+        private static Long parseLong(String value) {
+            return value != null ? Long.valueOf(value) : null;
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>(CSV_COLUMNS);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(toField(field, wasQuoted));
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(toField(field, wasQuoted));
+            return fields;
+        }
+
+        private static String toField(StringBuilder field, boolean wasQuoted) {
+            String value = wasQuoted ? field.toString() : field.toString().trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.IngestionStatsResponse;
+import com.example.practical_test.exceptions.IngestionBufferFullException;
+import com.example.practical_test.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for asynchronous event ingestion.
+ * Accepted events are kept in a bounded queue and written to the database
+ * by background writers in batches, flushed when a batch is full or when
+ * the flush interval has elapsed. A full buffer rejects new events instead
+ * of growing the heap.
+ * A failed write is retried with exponential backoff, which also holds the
+ * writer back so the buffer fills and pushes back with 429s. A batch that
+ * still fails after max-attempts is dropped and counted as failed, so
+ * accepted events are delivered at most once.
+ */
+@Service
+@ConditionalOnProperty(name = "events.ingestion.async.enabled", havingValue = "true")
+public class EventIngestionBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(EventIngestionBuffer.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Value("${events.ingestion.async.capacity:10000}")
+    private int capacity;
+
+    @Value("${events.ingestion.async.batch-size:500}")
+    private int batchSize;
+
+    @Value("${events.ingestion.async.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${events.ingestion.async.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${events.ingestion.async.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${events.ingestion.async.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${events.ingestion.async.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<Event> buffer;
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    // Metrics
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        running = true;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "event-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writerThreads; i++) {
+            writers.submit(this::runWriter);
+        }
+        logger.info("Async event ingestion started: capacity={}, batchSize={}, flushIntervalMs={}, writers={}",
+                capacity, batchSize, flushIntervalMs, writerThreads);
+    }
+
+    /**
+     * Stop accepting events and let the writers drain what is left in the buffer.
+     * Writers still busy after the shutdown timeout are interrupted, and the
+     * events they have not taken yet are written from the calling thread.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            logger.warn("Async event writers did not finish in time, writing the {} events left in the buffer",
+                    buffer.size());
+            writers.shutdownNow();
+        }
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Queue a validated event for writing
+     * @throws IngestionBufferFullException when the buffer has no free slot
+     */
+    public void submit(Event event) {
+        if (!running || !buffer.offer(event)) {
+            rejectedCount.increment();
+            throw new IngestionBufferFullException("Event ingestion buffer is full, retry later");
+        }
+        acceptedCount.increment();
+    }
+
+    public IngestionStatsResponse getStats() {
+        long flushes = flushCount.sum();
+        double avgFlushMillis = flushes == 0 ? 0.0 : totalFlushNanos.sum() / (double) flushes / 1_000_000.0;
+        return new IngestionStatsResponse(
+            buffer.size(),
+            capacity,
+            acceptedCount.sum(),
+            rejectedCount.sum(),
+            failedCount.sum(),
+            retryCount.sum(),
+            flushedCount.sum(),
+            flushes,
+            avgFlushMillis,
+            maxFlushNanos.get() / 1_000_000.0
+        );
+    }
+
+    private void runWriter() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                buffer.drainTo(batch, batchSize - batch.size());
+                write(batch);
+                return;
+            }
+            write(batch);
+        }
+    }
+
+    /**
+     * Block until at least one event is available, then keep collecting until
+     * the batch is full or the flush interval has passed
+     */
+    private void collectBatch(List<Event> batch) throws InterruptedException {
+        Event first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Event next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Write a batch, retrying failed flushes, and clear it
+     */
+    private void write(List<Event> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; !flush(batch); attempt++) {
+            if (attempt >= maxAttempts || !backOff(attempt)) {
+                failedCount.add(batch.size());
+                logger.error("Dropping {} buffered events after {} failed writes", batch.size(), attempt);
+                break;
+            }
+            retryCount.increment();
+        }
+        batch.clear();
+    }
+
+    private boolean flush(List<Event> batch) {
+        long start = System.nanoTime();
+        try {
+            eventService.persistEvents(unsaved(batch));
+            flushedCount.add(batch.size());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to write {} buffered events", batch.size(), e);
+            return false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushCount.increment();
+            totalFlushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Fresh copies of the events without ids: a failed attempt has already given
+     * the events it persisted generated ids, which a retry could not persist again
+     */
+    private static List<Event> unsaved(List<Event> batch) {
+        List<Event> events = new ArrayList<>(batch.size());
+        for (Event event : batch) {
+            events.add(new Event(null, event.getUserId(), event.getEventType(), event.getProductId(),
+                    event.getCategory(), event.getTimestamp()));
+        }
+        return events;
+    }
+
+    /**
+     * Wait before the next attempt, doubling the delay each time
+     * @return false if interrupted, the batch is then given up
+     */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt - 1, 10));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.practical_test.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the events table (see migration V3).
+ * Creates partitions for the coming months ahead of time and drops whole
+ * partitions once they are past the retention period, instead of deleting
+ * rows. Runs at startup and daily.
+ */
+@Service
+@ConditionalOnProperty(name = "events.partitions.maintenance.enabled", havingValue = "true")
+public class EventPartitionMaintenance {
+    private static final Logger logger = LoggerFactory.getLogger(EventPartitionMaintenance.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("events_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${events.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${events.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @PostConstruct
+    public void start() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${events.partitions.maintenance.cron:0 15 0 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            dropPartitionsBefore(YearMonth.from(retentionCutoff(LocalDate.now(clock), retentionMonths)));
+        }
+    }
+
+    /**
+     * Oldest timestamp kept: the start of the month retentionMonths before the current one.
+     * Searches use it as their lower bound, so they never reach dropped partitions.
+     */
+    public static LocalDateTime retentionCutoff(LocalDate today, int retentionMonths) {
+        return today.withDayOfMonth(1).minusMonths(retentionMonths).atStartOfDay();
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = "events_" + month.format(NAME_FORMAT);
+        try {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF events FOR VALUES FROM ('%s') TO ('%s')",
+                    name, month.atDay(1), month.plusMonths(1).atDay(1)));
+        } catch (RuntimeException e) {
+            // e.g. rows for that month already landed in the default partition
+            logger.error("Could not create event partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void dropPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = 'events'", String.class);
+        boolean dropped = false;
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue; // events_default
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE events DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                logger.info("Dropped expired event partition {}", partition);
+                dropped = true;
+            }
+        }
+        if (dropped) {
+            // Cached searches may still hold dropped events
+            eventService.clearCache();
+        }
+    }
+}
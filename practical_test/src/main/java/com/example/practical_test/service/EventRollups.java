@@ -0,0 +1,220 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hourly and daily event counts per (eventType, category, productId), see
+ * migration V4. A background job rolls up each complete hour once and moves
+ * the watermark past it; events written later with a timestamp below the
+ * watermark are added to the rollups by the write path, in its transaction.
+ * An advisory lock orders the two: the job holds it exclusively while
+ * rolling up, writers hold it shared until they commit, so every event is
+ * counted exactly once. Shared advisory locks neither conflict with each
+ * other nor lock the watermark row, and writers only read the watermark
+ * when neither the last one seen nor the clock tells whether an event is late.
+ */
+@Service
+@ConditionalOnProperty(name = "events.rollups.enabled", havingValue = "true")
+public class EventRollups {
+    private static final Logger logger = LoggerFactory.getLogger(EventRollups.class);
+
+    private static final String ROLL_UP_HOUR =
+            "WITH rolled AS ("
+            + " SELECT date_trunc('hour', timestamp) AS bucket, event_type, category, product_id, count(*) AS event_count"
+            + " FROM events WHERE timestamp >= ? AND timestamp < ?"
+            + " GROUP BY 1, 2, 3, 4"
+            + "), hourly AS ("
+            + " INSERT INTO event_counts_hourly (bucket, event_type, category, product_id, event_count)"
+            + " SELECT bucket, event_type, category, product_id, event_count FROM rolled"
+            + " ON CONFLICT (bucket, event_type, category, product_id)"
+            + " DO UPDATE SET event_count = event_counts_hourly.event_count + EXCLUDED.event_count"
+            + ") "
+            + "INSERT INTO event_counts_daily (bucket, event_type, category, product_id, event_count)"
+            + " SELECT date_trunc('day', bucket), event_type, category, product_id, sum(event_count) FROM rolled"
+            + " GROUP BY 1, 2, 3, 4"
+            + " ON CONFLICT (bucket, event_type, category, product_id)"
+            + " DO UPDATE SET event_count = event_counts_daily.event_count + EXCLUDED.event_count";
+    private static final String UPSERT =
+            "INSERT INTO %1$s (bucket, event_type, category, product_id, event_count) VALUES (?, ?, ?, ?, ?)"
+            + " ON CONFLICT (bucket, event_type, category, product_id)"
+            + " DO UPDATE SET event_count = %1$s.event_count + EXCLUDED.event_count";
+    // pg_advisory_xact_lock key of the watermark
+    private static final long WATERMARK_LOCK = 0x726f6c6c757073L;
+    private static final String HOURLY_TABLE = "event_counts_hourly";
+    private static final String DAILY_TABLE = "event_counts_daily";
+    // Upserts in one order everywhere, so concurrent writers cannot deadlock on rollup rows
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucket)
+            .thenComparing(RollupKey::eventType)
+            .thenComparing(RollupKey::category, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(RollupKey::productId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Clock clock;
+
+    // Hours younger than this are left to the raw tail, so rolled-up hours rarely get late events
+    @Value("${events.rollups.lag-seconds:60}")
+    private long lagSeconds;
+
+    // Bounds one run when catching up on a long history
+    @Value("${events.rollups.max-hours-per-run:168}")
+    private int maxHoursPerRun;
+
+    // How far the clocks of nodes may be ahead of each other; writes of events younger
+    // than lag-seconds minus this never read the watermark
+    @Value("${events.rollups.max-clock-skew-seconds:10}")
+    private long maxClockSkewSeconds;
+
+    // Last watermark read on this node; the watermark only moves forward, so it is never ahead
+    private volatile LocalDateTime knownWatermark = LocalDateTime.MIN;
+
+    @Scheduled(fixedDelayString = "${events.rollups.interval-ms:60000}")
+    public void rollUp() {
+        LocalDateTime target = LocalDateTime.now(clock).minusSeconds(lagSeconds).truncatedTo(ChronoUnit.HOURS);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int hours = 0;
+        while (hours < maxHoursPerRun && Boolean.TRUE.equals(transaction.execute(status -> rollUpNextHour(target)))) {
+            hours++;
+        }
+        if (hours > 0) {
+            logger.info("Rolled up {} hour(s) of events, watermark now {}", hours, watermark());
+        }
+    }
+
+    /**
+     * Everything before this is counted in the rollups
+     */
+    public LocalDateTime watermark() {
+        LocalDateTime watermark = jdbcTemplate.queryForObject(
+                "SELECT rolled_up_to FROM event_rollup_watermark WHERE id = 1", LocalDateTime.class);
+        remember(watermark);
+        return watermark;
+    }
+
+    /**
+     * Add the events that fall below the watermark to the rollups.
+     * Must run in the transaction that inserts the events.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordLateEvents(List<Event> events) {
+        // Shared lock until commit: the job cannot move the watermark past these events meanwhile
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + WATERMARK_LOCK + ")");
+        // Below the known watermark an event is late; at or above the newest hour any node's job
+        // may have rolled up it is not. Only events in between need the current watermark.
+        LocalDateTime watermark = knownWatermark;
+        LocalDateTime unrolled = LocalDateTime.now(clock).minusSeconds(lagSeconds - maxClockSkewSeconds);
+        for (Event event : events) {
+            if (!event.getTimestamp().isBefore(watermark) && event.getTimestamp().isBefore(unrolled)) {
+                watermark = watermark();
+                break;
+            }
+        }
+        Map<RollupKey, Long> hourly = new TreeMap<>(KEY_ORDER);
+        Map<RollupKey, Long> daily = new TreeMap<>(KEY_ORDER);
+        for (Event event : events) {
+            if (event.getTimestamp().isBefore(watermark)) {
+                hourly.merge(RollupKey.of(event, ChronoUnit.HOURS), 1L, Long::sum);
+                daily.merge(RollupKey.of(event, ChronoUnit.DAYS), 1L, Long::sum);
+            }
+        }
+        if (!hourly.isEmpty()) {
+            upsert(HOURLY_TABLE, hourly);
+            upsert(DAILY_TABLE, daily);
+        }
+    }
+
+    public Map<EventType, Long> countHourly(LocalDateTime from, LocalDateTime to, String category, Long productId) {
+        return count(HOURLY_TABLE, from, to, category, productId);
+    }
+
+    public Map<EventType, Long> countDaily(LocalDateTime from, LocalDateTime to, String category, Long productId) {
+        return count(DAILY_TABLE, from, to, category, productId);
+    }
+
+    private Boolean rollUpNextHour(LocalDateTime target) {
+        // Exclusive: waits for writers that may still add late events below the current watermark
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + WATERMARK_LOCK + ")");
+        LocalDateTime watermark = jdbcTemplate.queryForObject(
+                "SELECT rolled_up_to FROM event_rollup_watermark WHERE id = 1", LocalDateTime.class);
+        if (!watermark.isBefore(target)) {
+            return false;
+        }
+        LocalDateTime next = watermark.plusHours(1);
+        jdbcTemplate.update(ROLL_UP_HOUR, watermark, next);
+        jdbcTemplate.update("UPDATE event_rollup_watermark SET rolled_up_to = ? WHERE id = 1", next);
+        return true;
+    }
+
+    private synchronized void remember(LocalDateTime watermark) {
+        if (watermark.isAfter(knownWatermark)) {
+            knownWatermark = watermark;
+        }
+    }
+
+    private void upsert(String table, Map<RollupKey, Long> counts) {
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        for (Map.Entry<RollupKey, Long> entry : counts.entrySet()) {
+            RollupKey key = entry.getKey();
+            rows.add(new Object[] {key.bucket(), (short) key.eventType().ordinal(), key.category(), key.productId(),
+                    entry.getValue()});
+        }
+        jdbcTemplate.batchUpdate(String.format(UPSERT, table), rows);
+    }
+
+    private Map<EventType, Long> count(String table, LocalDateTime from, LocalDateTime to,
+                                       String category, Long productId) {
+        StringBuilder sql = new StringBuilder("SELECT event_type, sum(event_count) FROM ")
+                .append(table).append(" WHERE bucket >= ? AND bucket < ?");
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (productId != null) {
+            sql.append(" AND product_id = ?");
+            args.add(productId);
+        }
+        sql.append(" GROUP BY event_type");
+
+        Map<EventType, Long> counts = new EnumMap<>(EventType.class);
+        jdbcTemplate.query(sql.toString(), row -> {
+            counts.put(EventType.of(row.getShort(1)), row.getLong(2));
+        }, args.toArray());
+        return counts;
+    }
+
+    private record RollupKey(LocalDateTime bucket, EventType eventType, String category, Long productId) {
+        private static RollupKey of(Event event, ChronoUnit unit) {
+            return new RollupKey(event.getTimestamp().truncatedTo(unit), event.getEventType(),
+                    event.getCategory(), event.getProductId());
+        }
+    }
+}
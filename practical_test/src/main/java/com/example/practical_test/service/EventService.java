@@ -1,22 +1,57 @@
 package com.example.practical_test.service;
 
-import com.example.practical_test.cache.LRUCache;
+import com.example.practical_test.cache.DistinctUserSketches;
+import com.example.practical_test.cache.EventDictionary;
+import com.example.practical_test.cache.EventSearchCache;
+import com.example.practical_test.cache.HyperLogLog;
+import com.example.practical_test.cache.RecentEventWindow;
+import com.example.practical_test.cache.RollingEventCounters;
+import com.example.practical_test.cache.SpaceSaving;
+import com.example.practical_test.cache.TrendingProducts;
+import com.example.practical_test.cache.UserTimelineIndex;
+import com.example.practical_test.dto.BulkLoadResponse;
+import com.example.practical_test.dto.CacheStatsResponse;
+import com.example.practical_test.dto.DistinctUserCount;
+import com.example.practical_test.dto.DistinctUsersResponse;
+import com.example.practical_test.dto.EventCursor;
+import com.example.practical_test.dto.EventPage;
 import com.example.practical_test.dto.EventRequest;
 import com.example.practical_test.dto.EventResponse;
 import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.dto.FunnelResponse;
+import com.example.practical_test.dto.TrendingProduct;
+import com.example.practical_test.dto.TrendingProductsResponse;
 import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
 import com.example.practical_test.repository.EventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 @Service
 public class EventService {
@@ -25,133 +60,712 @@ public class EventService {
     @Autowired
     private EventRepository eventRepository;
     
-    // Thread-safe in-memory queue for latest 500 events
-    private final ConcurrentLinkedQueue<Event> eventQueue = new ConcurrentLinkedQueue<>();
-    private static final int MAX_QUEUE_SIZE = 500;
+    @Autowired
+    private JsonMapper jsonMapper;
     
-    // LRU Cache for event search results (max 100 cached queries)
-    private final LRUCache<EventSearchKey, List<EventResponse>> eventCache = new LRUCache<>(100);
+    @Autowired
+    private PlatformTransactionManager transactionManager;
     
-    public EventResponse createEvent(EventRequest request) {
-        Event event = new Event();
-        event.setUserId(request.getUserId());
-        event.setEventType(request.getEventType());
-        event.setProductId(request.getProductId());
-        event.setCategory(request.getCategory());
-        event.setTimestamp(request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now());
-        
-        // Validate event type (case-insensitive)
-        if (!isValidEventType(event.getEventType())) {
-            throw new IllegalArgumentException("Invalid event type. Must be VIEW, ADD_TO_CART, or PURCHASE (case-insensitive)");
+    @Autowired
+    private Clock clock;
+    
+    // Shared second cache tier, present when events.cache.redis.enabled=true
+    @Autowired(required = false)
+    private SearchCacheRedisTier redisTier;
+    
+    // Hourly/daily count tables for historical summaries, present when events.rollups.enabled=true
+    @Autowired(required = false)
+    private EventRollups rollups;
+    
+    // Distinct-user sketches shared with other nodes, present when events.distinct-users.store.enabled=true
+    @Autowired(required = false)
+    private DistinctUserSketchStore sketchStore;
+    
+    // Category codes shared by the compact in-memory structures below, for at most max-categories categories
+    @Value("${events.dictionary.max-categories:10000}")
+    private int dictionaryMaxCategories;
+    private EventDictionary eventDictionary;
+    
+    // Lock-free compact ring and summary counters for the latest events (500 by default)
+    @Value("${events.recent.capacity:500}")
+    private int recentCapacity;
+    private RecentEventWindow recentEvents;
+    private static final int RECENT_EVENTS_LIMIT = 20;
+    private static final int MAX_DISTINCT_USER_DAYS = 366;
+    
+    // Per-second and per-minute counters for time-windowed summaries
+    private RollingEventCounters rollingCounters;
+    
+    // Cache for event search results, bounded by cached searches and total rows, kept up to date on writes
+    @Value("${events.cache.max-entries:100}")
+    private int cacheMaxEntries;
+    @Value("${events.cache.max-weight:100000}")
+    private long cacheMaxWeight;
+    @Value("${events.cache.max-entry-weight:10000}")
+    private int cacheMaxEntryWeight;
+    private EventSearchCache eventCache;
+    
+    // Page size of GET /events when no limit is given, and the largest page served
+    @Value("${events.search.default-page-size:100}")
+    private int defaultPageSize;
+    @Value("${events.search.max-page-size:1000}")
+    private int maxPageSize;
+    
+    // Months of events kept by partition retention (0 = keep everything); searches never look further back
+    @Value("${events.partitions.retention-months:0}")
+    private int retentionMonths;
+    
+    // Rows fetched per round trip (and persistence context size) of streaming exports
+    @Value("${events.export.fetch-size:1000}")
+    private int exportFetchSize;
+    
+    // Largest number of products or categories listed by GET /events/funnel
+    @Value("${events.funnel.max-groups:1000}")
+    private int funnelMaxGroups;
+    
+    // Bulk loads: events per COPY, and the largest write (bulk load or batch) spliced into cached searches;
+    // larger ones clear the cache
+    @Value("${events.bulk.chunk-size:5000}")
+    private int bulkChunkSize;
+    @Value("${events.bulk.max-spliced-events:10000}")
+    private int bulkMaxSplicedEvents;
+    
+    // HyperLogLog sketches of distinct users per (eventType, category, day): 2^precision bytes each
+    @Value("${events.distinct-users.precision:12}")
+    private int distinctUsersPrecision;
+    @Value("${events.distinct-users.retention-days:35}")
+    private int distinctUsersRetentionDays;
+    private DistinctUserSketches distinctUsers;
+    
+    // Space-Saving heavy hitters per (eventType, category) for GET /events/trending: products tracked per window,
+    // (eventType, category) pairs ranked at most, and the windows
+    @Value("${events.trending.capacity:200}")
+    private int trendingCapacity;
+    @Value("${events.trending.max-category-trends:1000}")
+    private int trendingMaxCategoryTrends;
+    @Value("${events.trending.windows:5m,1h,24h}")
+    private String[] trendingWindows;
+    private TrendingProducts trendingProducts;
+    
+    // Latest events of recently searched users, answering GET /events?userId=... without a query
+    @Value("${events.user-timelines.capacity:100}")
+    private int timelineCapacity;
+    @Value("${events.user-timelines.max-users:10000}")
+    private int timelineMaxUsers;
+    @Value("${events.user-timelines.idle-seconds:900}")
+    private long timelineIdleSeconds;
+    private UserTimelineIndex userTimelines;
+    
+    @PostConstruct
+    public void init() {
+        eventDictionary = new EventDictionary(dictionaryMaxCategories);
+        recentEvents = new RecentEventWindow(recentCapacity, eventDictionary);
+        rollingCounters = new RollingEventCounters(clock);
+        eventCache = new EventSearchCache(cacheMaxEntries, cacheMaxWeight, cacheMaxEntryWeight, eventDictionary,
+                this::toEventResponse);
+        userTimelines = new UserTimelineIndex(timelineCapacity, timelineMaxUsers, eventDictionary);
+        if (redisTier != null) {
+            // Events written on other nodes are spliced into this node's cached searches and user timelines
+            redisTier.setRemoteWriteListener(events -> {
+                userTimelines.apply(events);
+                eventCache.apply(events);
+            });
+            redisTier.setRemoteClearListener(() -> {
+                userTimelines.clear();
+                eventCache.clear();
+            });
         }
-        
-        // Normalize event type to uppercase for consistency
-        event.setEventType(event.getEventType().toUpperCase());
+        distinctUsers = new DistinctUserSketches(distinctUsersPrecision, distinctUsersRetentionDays);
+        distinctUsers.expire(LocalDate.now(clock));
+        trendingProducts = newTrendingProducts();
+        if (sketchStore != null) {
+            sketchStore.track(distinctUsers);
+        }
+    }
+    
+    public EventResponse createEvent(EventRequest request) {
+        Event event = toEvent(request);
         
         // Save to database
-        Event savedEvent = eventRepository.save(event);
-        
-        // Add to in-memory queue
-        addToQueue(savedEvent);
+        Event savedEvent = new TransactionTemplate(transactionManager).execute(status -> {
+            Event saved = eventRepository.save(event);
+            recordLateEvents(List.of(saved));
+            return saved;
+        });
         
-        // Invalidate cache when new event is created
-        invalidateCache();
+        // Add to in-memory queue and invalidate cache
+        afterPersist(List.of(savedEvent));
         
         return toEventResponse(savedEvent);
     }
     
+    /**
+     * Create all events in one transaction with JDBC statement batching.
+     * Every request is validated before anything is written, so an invalid
+     * event rejects the whole batch.
+     */
     public List<EventResponse> createEventsBatch(List<EventRequest> requests) {
-        List<EventResponse> responses = new ArrayList<>();
+        List<Event> events = new ArrayList<>(requests.size());
         for (EventRequest request : requests) {
-            responses.add(createEvent(request));
+            events.add(toEvent(request));
+        }
+        return persistEvents(events);
+    }
+    
+    /**
+     * Persist already validated events as one JDBC-batched transaction
+     */
+    public List<EventResponse> persistEvents(List<Event> events) {
+        List<Event> savedEvents = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Event> saved = eventRepository.insertBatch(events);
+            recordLateEvents(saved);
+            return saved;
+        });
+        
+        // One queue append and one cache invalidation for the whole batch
+        afterPersist(savedEvents);
+        
+        List<EventResponse> responses = new ArrayList<>(savedEvents.size());
+        for (Event event : savedEvents) {
+            responses.add(toEventResponse(event));
         }
         return responses;
     }
     
-    public List<EventResponse> getEvents(Long userId, String eventType, String category, 
-                                        Long productId, LocalDateTime from, LocalDateTime to) {
-        // Create cache key from search parameters
-        EventSearchKey cacheKey = new EventSearchKey(userId, eventType, category, productId, from, to);
+    /**
+     * Load a stream of events in one transaction, written with binary COPY in
+     * chunks of events.bulk.chunk-size. Only the current chunk and bounded
+     * after-commit state are held in memory, whatever the number of events.
+     * An invalid event rolls the whole load back.
+     */
+    public BulkLoadResponse bulkLoad(Iterator<EventRequest> requests) {
+        long start = System.nanoTime();
+        BulkLoadState state = new BulkLoadState();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Event> chunk = new ArrayList<>(bulkChunkSize);
+            while (hasNextBulkEvent(requests, state.count + chunk.size() + 1)) {
+                chunk.add(toBulkEvent(requests, state.count + chunk.size() + 1));
+                if (chunk.size() == bulkChunkSize) {
+                    state.add(copyChunk(chunk));
+                    chunk = new ArrayList<>(bulkChunkSize);
+                }
+            }
+            state.add(copyChunk(chunk));
+        });
         
-        // Check LRU cache first
-        List<EventResponse> cachedResult = eventCache.get(cacheKey);
-        if (cachedResult != null) {
-            logger.info("LRU Cache HIT - Returning cached results for query: userId={}, eventType={}, category={}", 
-                       userId, eventType, category);
-            logger.info("Cache size: {}", eventCache.size());
-            return new ArrayList<>(cachedResult); // Return a copy to avoid external modification
+        // Committed: now the events may become visible in memory
+        afterBulkLoad(state);
+        return new BulkLoadResponse(state.count, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private List<Event> copyChunk(List<Event> chunk) {
+        List<Event> copied = eventRepository.copyBatch(chunk);
+        recordLateEvents(copied);
+        return copied;
+    }
+    
+    /**
+     * Count events older than the rollup watermark into the rollups, in the inserting transaction
+     */
+    private void recordLateEvents(List<Event> events) {
+        if (rollups != null && !events.isEmpty()) {
+            rollups.recordLateEvents(events);
+        }
+    }
+    
+    /**
+     * Reading the body fails as an invalid event, so that only database failures
+     * surface as something else
+     */
+    private boolean hasNextBulkEvent(Iterator<EventRequest> requests, long number) {
+        try {
+            return requests.hasNext();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Event " + number + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private Event toBulkEvent(Iterator<EventRequest> requests, long number) {
+        try {
+            EventRequest request = requests.next();
+            if (request.getUserId() == null) {
+                throw new IllegalArgumentException("UserId is required");
+            }
+            return toEvent(request);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Event " + number + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void afterBulkLoad(BulkLoadState state) {
+        addToQueue(new ArrayList<>(state.newest));
+        rollingCounters.addAll(state.counters);
+        distinctUsers.addAll(state.users);
+        trendingProducts.addAll(state.trending);
+        spliceIntoCaches(state.spliced);
+    }
+    
+    /**
+     * Splice committed events into the shared tier, the user timelines and the
+     * cached searches they match, or clear them all when there are too many
+     * events (null, or more than events.bulk.max-spliced-events) to splice one by one
+     */
+    private void spliceIntoCaches(List<Event> events) {
+        if (events != null && events.size() <= bulkMaxSplicedEvents) {
+            // Before the local cache: from here on, local loads bypass the shared results these events make stale
+            if (redisTier != null) {
+                redisTier.publishWrite(events);
+            }
+            userTimelines.apply(events);
+            eventCache.apply(events);
+        } else {
+            if (redisTier != null) {
+                redisTier.publishClear();
+            }
+            userTimelines.clear();
+            eventCache.clear();
         }
+    }
+    
+    /**
+     * What a bulk load applies to the in-memory state after commit: the newest
+     * events for the recent queue, staged rolling counts, distinct-user
+     * sketches and trending products, and the events to
+     * splice into cached searches until there are too many of them
+     */
+    private final class BulkLoadState {
+        private final ArrayDeque<Event> newest = new ArrayDeque<>();
+        private final RollingEventCounters counters = new RollingEventCounters(clock);
+        private final DistinctUserSketches users = new DistinctUserSketches(distinctUsersPrecision, distinctUsersRetentionDays);
+        private final TrendingProducts trending = newTrendingProducts();
+        private List<Event> spliced = new ArrayList<>();
+        private long count;
         
-        // Cache miss - query database
-        logger.info("LRU Cache MISS - Querying database for: userId={}, eventType={}, category={}", 
-                   userId, eventType, category);
-        List<Event> events = eventRepository.findEventsWithFilters(
-            userId, eventType, category, productId, from, to
-        );
+        private void add(List<Event> events) {
+            count += events.size();
+            for (Event event : events) {
+                counters.add(event);
+                users.add(event);
+                trending.add(event);
+                if (newest.size() == recentCapacity) {
+                    newest.removeFirst();
+                }
+                newest.addLast(event);
+            }
+            if (spliced != null && spliced.size() + events.size() <= bulkMaxSplicedEvents) {
+                spliced.addAll(events);
+            } else {
+                spliced = null;
+            }
+        }
+    }
+    
+    /**
+     * One page of a search, newest first. Searches of a user are served from
+     * the user's in-memory timeline when it holds the whole page. Otherwise the
+     * first page (no cursor) is served from the cache; later pages seek past
+     * the cursor position, so every page costs the same as the first.
+     */
+    public EventPage getEvents(Long userId, String eventType, String category, Long productId,
+                               LocalDateTime from, LocalDateTime to, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        EventType type = EventType.parseFilter(eventType);
+        from = boundedFrom(from);
+        // One extra row tells whether there is a next page
+        EventSearchKey searchKey = new EventSearchKey(userId, type, category, productId, from, to, pageSize + 1);
         
-        List<EventResponse> responses = events.stream()
-                .map(this::toEventResponse)
-                .collect(Collectors.toList());
+        EventCursor after = cursor != null && !cursor.isEmpty() ? EventCursor.decode(cursor) : null;
+        // A user's search is served from the user's timeline when it holds the whole page
+        List<EventResponse> rows = userId != null ? findInTimeline(searchKey, after) : null;
+        if (rows == null && after != null) {
+            rows = eventRepository.findEventsPage(userId, type, category, productId, from, to,
+                    after.getTimestamp(), after.getId(), searchKey.getMaxRows());
+        } else if (rows == null) {
+            // Check the cache first; hits and misses are counted by the cache, not logged per request
+            rows = eventCache.get(searchKey);
+            if (rows == null) {
+                // Cache miss - shared tier, then database; concurrent misses on the same search share one load
+                rows = eventCache.load(searchKey, () -> loadEvents(searchKey));
+            }
+        }
         
-        // Store in cache
-        eventCache.put(cacheKey, new ArrayList<>(responses)); // Store a copy
-        logger.info("Cached query result. Cache size: {}", eventCache.size());
+        if (rows.size() <= pageSize) {
+            return new EventPage(rows, null);
+        }
+        List<EventResponse> page = rows.subList(0, pageSize); // A view, cached rows are not copied
+        return new EventPage(page, EventCursor.after(page.get(pageSize - 1)).encode());
+    }
+    
+    /**
+     * A page of a user's search from the user's timeline, loading the timeline
+     * on the user's first search, or null when the timeline cannot answer it
+     */
+    private List<EventResponse> findInTimeline(EventSearchKey key, EventCursor after) {
+        LocalDateTime afterTimestamp = after != null ? after.getTimestamp() : null;
+        Long afterId = after != null ? after.getId() : null;
+        List<EventResponse> rows = userTimelines.find(key, afterTimestamp, afterId);
+        if (rows == null) {
+            LocalDateTime from = boundedFrom(null);
+            // One extra row tells whether the user has older events than the timeline holds
+            boolean loaded = userTimelines.load(key.getUserId(), from, () -> eventRepository.findEventsPage(
+                    key.getUserId(), null, null, null, from, null, null, null, timelineCapacity + 1));
+            if (loaded) {
+                rows = userTimelines.find(key, afterTimestamp, afterId);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Write every event matching the filters to the stream as NDJSON, newest first.
+     * Rows are read through a database cursor and written one at a time, so
+     * memory use does not depend on the number of matching events.
+     * @return number of events written
+     */
+    public long exportEvents(Long userId, EventType eventType, String category, Long productId,
+                             LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        ObjectWriter writer = jsonMapper.writerFor(EventResponse.class);
+        try {
+            long count = eventRepository.forEachEventWithFilters(userId, eventType, category, productId,
+                    boundedFrom(from), to,
+                    exportFetchSize, event -> {
+                        try {
+                            out.write(writer.writeValueAsBytes(event));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            out.flush();
+            return count;
+        } catch (UncheckedIOException e) {
+            // Typically the client went away; stop reading and let the caller see the I/O failure
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * VIEW -> ADD_TO_CART -> PURCHASE conversion per product or category over [from, to).
+     * Events are streamed through a database cursor in (user, time) order into a
+     * per-user state machine, so time is linear in the number of events and the
+     * events are never held in memory.
+     * @param to end of the range (exclusive), or null for now
+     * @param limit number of groups listed, largest funnels first
+     */
+    public FunnelResponse getFunnel(String groupBy, String category, Long productId,
+                                    LocalDateTime from, LocalDateTime to, Integer limit) {
+        FunnelAnalyzer.GroupBy grouping = parseGroupBy(groupBy);
+        LocalDateTime end = to != null ? to : LocalDateTime.now(clock);
+        LocalDateTime start = boundedFrom(from);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        int groups = limit == null ? 100 : limit;
+        if (groups < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        
+        FunnelAnalyzer analyzer = new FunnelAnalyzer(grouping);
+        eventRepository.forEachEventByUser(start, end, category != null && !category.isEmpty() ? category : null,
+                productId, exportFetchSize, analyzer);
+        FunnelResponse response = analyzer.result(Math.min(groups, funnelMaxGroups));
+        response.setFrom(start);
+        response.setTo(end);
+        return response;
+    }
+    
+    private static FunnelAnalyzer.GroupBy parseGroupBy(String groupBy) {
+        if (groupBy == null || groupBy.isEmpty()) {
+            return FunnelAnalyzer.GroupBy.CATEGORY;
+        }
+        try {
+            return FunnelAnalyzer.GroupBy.valueOf(groupBy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid groupBy. Must be product or category");
+        }
+    }
+    
+    /**
+     * Lower timestamp bound of a search: with partition retention, never before the
+     * retention cutoff, so PostgreSQL can prune the partitions outside it. Part of
+     * the cache key, so cached searches and splicing see the same bound.
+     */
+    private LocalDateTime boundedFrom(LocalDateTime from) {
+        if (retentionMonths <= 0) {
+            return from;
+        }
+        LocalDateTime cutoff = EventPartitionMaintenance.retentionCutoff(LocalDate.now(clock), retentionMonths);
+        return from == null || from.isBefore(cutoff) ? cutoff : from;
+    }
+    
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+    
+    private List<EventResponse> loadEvents(EventSearchKey key) {
+        // Looked up before querying, so a result that misses a concurrent write is stored under a stale version
+        SearchCacheRedisTier.Lookup shared = redisTier != null ? redisTier.get(key) : null;
+        if (shared != null && shared.getResults() != null) {
+            return shared.getResults();
+        }
         
+        List<EventResponse> responses = eventRepository.findEventsPage(key.getUserId(),
+                key.getEventType(), key.getCategory(), key.getProductId(), key.getFrom(), key.getTo(),
+                null, null, key.getMaxRows());
+        if (shared != null && responses.size() <= cacheMaxEntryWeight) {
+            redisTier.put(key, shared, responses);
+        }
         return responses;
     }
     
     public List<EventResponse> getRecentEvents() {
-        // Get latest 20 events from queue
-        // Convert queue to list and take the last 20 elements
-        List<Event> allEvents = new ArrayList<>(eventQueue);
-        int startIndex = Math.max(0, allEvents.size() - 20);
-        List<Event> recentEvents = allEvents.subList(startIndex, allEvents.size());
+        // Get latest 20 events from the ring, oldest first
+        return recentEvents.latest(RECENT_EVENTS_LIMIT);
+    }
+    
+    /**
+     * Count events per type, either over the in-memory window of latest events
+     * or, when a time window such as "5m" is given, over that period
+     */
+    public Map<EventType, Long> getEventSummary(String category, String window) {
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        if (window == null || window.isEmpty()) {
+            // Counters are maintained as events enter and leave the window
+            return recentEvents.summary(categoryFilter);
+        }
+        return rollingCounters.summary(parseWindow(window), categoryFilter);
+    }
+    
+    /**
+     * Count events per event type with a timestamp in [from, to), at any age.
+     * With rollups, whole days and hours below the rollup watermark are read
+     * from the daily and hourly count tables; only partial hours at the edges
+     * and the not yet rolled-up tail are counted from the events table.
+     * @param to end of the range (exclusive), or null for now
+     */
+    public Map<EventType, Long> getEventSummary(String category, Long productId, LocalDateTime from, LocalDateTime to) {
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        LocalDateTime end = to != null ? to : LocalDateTime.now(clock);
+        if (!from.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (rollups == null) {
+            return eventRepository.countByEventType(from, end, categoryFilter, productId);
+        }
         
-        return recentEvents.stream()
-                .map(this::toEventResponse)
-                .collect(Collectors.toList());
+        RollupRangePlan plan = RollupRangePlan.of(from, end, rollups.watermark());
+        // Summed by event type ordinal
+        long[] sums = new long[EventType.count()];
+        for (RollupRangePlan.Range range : plan.getDaily()) {
+            addCounts(sums, rollups.countDaily(range.from(), range.to(), categoryFilter, productId));
+        }
+        for (RollupRangePlan.Range range : plan.getHourly()) {
+            addCounts(sums, rollups.countHourly(range.from(), range.to(), categoryFilter, productId));
+        }
+        for (RollupRangePlan.Range range : plan.getRaw()) {
+            addCounts(sums, eventRepository.countByEventType(range.from(), range.to(), categoryFilter, productId));
+        }
+        Map<EventType, Long> summary = new EnumMap<>(EventType.class);
+        for (int i = 0; i < sums.length; i++) {
+            if (sums[i] > 0) {
+                summary.put(EventType.of(i), sums[i]);
+            }
+        }
+        return summary;
     }
     
-    public Map<String, Long> getEventSummary(String category) {
-        // Get events from queue
-        List<Event> events = new ArrayList<>(eventQueue);
+    /**
+     * Approximate number of distinct users per day in [from, to] and over the
+     * whole range, from the HyperLogLog sketches kept on ingestion (merged with
+     * the other nodes' stored sketches when the sketch store is enabled).
+     * Each count comes with a 95% confidence interval of +-1.96 standard errors.
+     * @param to last day (inclusive), or null for today
+     */
+    public DistinctUsersResponse getDistinctUsers(String eventType, String category, LocalDate from, LocalDate to) {
+        EventType typeFilter = EventType.parseFilter(eventType);
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        LocalDate end = to != null ? to : LocalDate.now(clock);
+        LocalDate start = from != null ? from : end;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_DISTINCT_USER_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_DISTINCT_USER_DAYS + " days");
+        }
         
-        // Filter by category if provided
-        if (category != null && !category.isEmpty()) {
-            events = events.stream()
-                    .filter(e -> category.equals(e.getCategory()))
-                    .collect(Collectors.toList());
+        Map<LocalDate, HyperLogLog> perDay = new TreeMap<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            HyperLogLog sketch = new HyperLogLog(distinctUsers.precision());
+            distinctUsers.mergeInto(sketch, typeFilter, categoryFilter, day);
+            perDay.put(day, sketch);
+        }
+        if (sketchStore != null) {
+            sketchStore.mergeInto(perDay, start, end, typeFilter, categoryFilter);
         }
         
-        // Group by event type and count
-        return events.stream()
-                .collect(Collectors.groupingBy(
-                    Event::getEventType,
-                    Collectors.counting()
-                ));
+        HyperLogLog total = new HyperLogLog(distinctUsers.precision());
+        List<DistinctUserCount> days = new ArrayList<>(perDay.size());
+        for (Map.Entry<LocalDate, HyperLogLog> entry : perDay.entrySet()) {
+            total.merge(entry.getValue());
+            days.add(distinctUserCount(entry.getKey(), entry.getValue()));
+        }
+        DistinctUsersResponse response = new DistinctUsersResponse();
+        response.setEventType(typeFilter);
+        response.setCategory(categoryFilter);
+        response.setFrom(start);
+        response.setTo(end);
+        response.setRelativeStandardError(total.relativeStandardError());
+        response.setTotal(distinctUserCount(null, total));
+        response.setDays(days);
+        return response;
     }
     
-    private void addToQueue(Event event) {
-        eventQueue.offer(event);
+    private static DistinctUserCount distinctUserCount(LocalDate day, HyperLogLog sketch) {
+        long estimate = sketch.estimate();
+        double margin = 1.96 * sketch.relativeStandardError() * estimate;
+        return new DistinctUserCount(day, estimate, Math.max(0L, (long) Math.floor(estimate - margin)),
+                (long) Math.ceil(estimate + margin));
+    }
+    
+    /**
+     * Most frequent products of an event type over a recent window, from the
+     * heavy-hitters summaries maintained on ingestion: no database query, and
+     * the cost depends only on limit
+     * @param eventType event type to rank (default VIEW)
+     * @param category category to rank, or null for all categories
+     * @param window one of events.trending.windows (default the first)
+     */
+    public TrendingProductsResponse getTrendingProducts(String eventType, String category, String window, Integer limit) {
+        EventType type = EventType.parseFilter(eventType);
+        if (type == null) {
+            type = EventType.VIEW;
+        }
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        String windowName = window != null && !window.isEmpty() ? window.trim().toLowerCase() : trendingWindows[0].trim();
+        Duration duration = parseWindow(windowName);
+        if (!trendingProducts.hasWindow(duration)) {
+            throw new IllegalArgumentException("Invalid window. Must be one of " + String.join(", ", trendingWindows));
+        }
+        int count = limit == null ? 10 : limit;
+        if (count < 1 || count > trendingCapacity) {
+            throw new IllegalArgumentException("limit must be between 1 and " + trendingCapacity);
+        }
         
-        // Maintain max size of 500
-        while (eventQueue.size() > MAX_QUEUE_SIZE) {
-            eventQueue.poll(); // Remove oldest event
+        List<TrendingProduct> products = new ArrayList<>(count);
+        for (SpaceSaving.Entry entry : trendingProducts.top(type, categoryFilter, duration, count)) {
+            products.add(new TrendingProduct(entry.item(), entry.count(), entry.count() - entry.error()));
+        }
+        return new TrendingProductsResponse(type, categoryFilter, windowName, products);
+    }
+    
+    private TrendingProducts newTrendingProducts() {
+        Duration[] windows = new Duration[trendingWindows.length];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = parseWindow(trendingWindows[i]);
         }
+        return new TrendingProducts(clock, trendingCapacity, trendingMaxCategoryTrends, windows);
     }
     
-    private boolean isValidEventType(String eventType) {
-        if (eventType == null || eventType.trim().isEmpty()) {
-            return false;
+    /**
+     * Evict the timelines of users not searched for events.user-timelines.idle-seconds
+     */
+    @Scheduled(fixedDelayString = "${events.user-timelines.sweep-interval-ms:60000}")
+    public void evictIdleTimelines() {
+        int evicted = userTimelines.evictIdle(Duration.ofSeconds(timelineIdleSeconds).toNanos());
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle user timeline(s), {} left", evicted, userTimelines.size());
         }
-        // Case-insensitive validation
-        String normalized = eventType.trim().toUpperCase();
-        return "VIEW".equals(normalized) || 
-               "ADD_TO_CART".equals(normalized) || 
-               "PURCHASE".equals(normalized);
     }
     
-    private EventResponse toEventResponse(Event event) {
+    /**
+     * Evict the trending products of (eventType, category) pairs without events in any window
+     */
+    @Scheduled(fixedDelayString = "${events.trending.sweep-interval-ms:60000}")
+    public void evictIdleTrends() {
+        int evicted = trendingProducts.evictIdle();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle trend(s), {} left", evicted, trendingProducts.size());
+        }
+    }
+    
+    /**
+     * Drop the distinct-user sketches of days past their retention
+     */
+    @Scheduled(cron = "${events.distinct-users.expire-cron:0 0 * * * *}")
+    public void expireDistinctUsers() {
+        distinctUsers.expire(LocalDate.now(clock));
+    }
+    
+    private static void addCounts(long[] sums, Map<EventType, Long> counts) {
+        counts.forEach((type, count) -> sums[type.ordinal()] += count);
+    }
+    
+    /**
+     * Update in-memory state once events have been committed
+     */
+    private void afterPersist(List<Event> events) {
+        addToQueue(events);
+        for (Event event : events) {
+            rollingCounters.add(event);
+            distinctUsers.add(event);
+            trendingProducts.add(event);
+        }
+        spliceIntoCaches(events);
+    }
+    
+    private void addToQueue(List<Event> events) {
+        // Older events of a large batch would be overwritten straight away
+        for (int i = Math.max(0, events.size() - recentCapacity); i < events.size(); i++) {
+            recentEvents.add(events.get(i));
+        }
+    }
+    
+    /**
+     * Validate a request and build the (not yet persisted) event for it
+     */
+    public Event toEvent(EventRequest request) {
+        // Parsed case-insensitively when the request was read
+        if (request.getType() == null) {
+            throw new IllegalArgumentException(EventType.INVALID_MESSAGE);
+        }
+        
+        Event event = new Event();
+        event.setUserId(request.getUserId());
+        event.setEventType(request.getType());
+        event.setProductId(request.getProductId());
+        event.setCategory(request.getCategory());
+        // Microsecond precision, as stored by PostgreSQL, so in-memory copies equal the persisted rows
+        LocalDateTime timestamp = request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now(clock);
+        event.setTimestamp(timestamp.truncatedTo(ChronoUnit.MICROS));
+        return event;
+    }
+    
+    /**
+     * Parse a summary window such as "30s", "5m" or "1h"
+     */
+    private Duration parseWindow(String window) {
+        String value = window.trim().toLowerCase();
+        if (!value.matches("\\d{1,6}[smh]")) {
+            throw new IllegalArgumentException("Invalid window. Use a number followed by s, m or h (e.g. 1m, 5m, 1h)");
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return Duration.ofSeconds(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            default:
+                return Duration.ofHours(amount);
+        }
+    }
+    
+    public EventResponse toEventResponse(Event event) {
         return new EventResponse(
             event.getId(),
             event.getUserId(),
@@ -170,24 +784,29 @@ public class EventService {
     }
     
     public int getMaxCacheSize() {
-        return 100; // Max cache size
+        return cacheMaxEntries;
     }
     
     /**
-     * Clear cache manually (for testing)
+     * Maximum number of rows held by the cache
      */
-    public void clearCache() {
-        logger.info("Cache manually cleared. Cache size was: {}", eventCache.size());
-        eventCache.clear();
+    public long getMaxCacheWeight() {
+        return eventCache.maxWeight();
     }
     
     /**
-     * Invalidate the cache when new events are created
-     * This ensures cache consistency
+     * Size, weight, hit/miss/put/eviction/invalidation counts and miss penalty of the search cache
      */
-    private void invalidateCache() {
-        logger.info("Cache invalidated due to new event creation. Cache cleared.");
+    public CacheStatsResponse getCacheStats() {
+        return eventCache.stats();
+    }
+    
+    /**
+     * Clear cache manually (for testing)
+     */
+    public void clearCache() {
+        logger.info("Cache manually cleared. Cache size was: {}", eventCache.size());
+        userTimelines.clear();
         eventCache.clear();
     }
 }
-
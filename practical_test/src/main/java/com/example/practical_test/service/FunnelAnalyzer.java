@@ -0,0 +1,221 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.FunnelResponse;
+import com.example.practical_test.dto.FunnelStepsResponse;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming VIEW -> ADD_TO_CART -> PURCHASE funnel per product or category.
+ * Events must arrive grouped by user and oldest first within a user. Each
+ * (user, group) pair runs a small state machine: the first VIEW enters the
+ * funnel, the first ADD_TO_CART after it and then the first PURCHASE after
+ * that advance it; anything out of order is ignored. Only the current user's
+ * states are kept, plus per-group counters and log-bucket histograms of the
+ * step durations, so memory grows with groups, not events or conversions.
+ * Medians are approximate, within {@link DurationHistogram#RELATIVE_ACCURACY}.
+ */
+public class FunnelAnalyzer implements Consumer<EventResponse> {
+    public enum GroupBy {
+        PRODUCT, CATEGORY
+    }
+
+    private static final int VIEWED = 1;
+    private static final int ADDED_TO_CART = 2;
+    private static final int PURCHASED = 3;
+
+    private final GroupBy groupBy;
+    private final Map<Object, UserFunnel> userFunnels = new HashMap<>();
+    private final Map<Object, GroupStats> groups = new HashMap<>();
+    private final GroupStats overall = new GroupStats();
+    private Long currentUser;
+    private long eventCount;
+
+    public FunnelAnalyzer(GroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    @Override
+    public void accept(EventResponse event) {
+        eventCount++;
+        if (!event.getUserId().equals(currentUser)) {
+            // Events arrive grouped by user: the previous user's funnels are complete
+            userFunnels.clear();
+            currentUser = event.getUserId();
+        }
+        Object key = groupBy == GroupBy.PRODUCT ? event.getProductId() : event.getCategory();
+        if (key == null) {
+            return;
+        }
+
+        long time = event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        UserFunnel funnel = userFunnels.get(key);
+        switch (event.getEventType()) {
+            case VIEW:
+                if (funnel == null) {
+                    userFunnels.put(key, new UserFunnel(time));
+                    group(key).viewed++;
+                    overall.viewed++;
+                }
+                break;
+            case ADD_TO_CART:
+                if (funnel != null && funnel.step == VIEWED) {
+                    funnel.step = ADDED_TO_CART;
+                    group(key).addToCart(time - funnel.time);
+                    overall.addToCart(time - funnel.time);
+                    funnel.time = time;
+                }
+                break;
+            case PURCHASE:
+                if (funnel != null && funnel.step == ADDED_TO_CART) {
+                    funnel.step = PURCHASED;
+                    group(key).purchase(time - funnel.time);
+                    overall.purchase(time - funnel.time);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Funnel of every group (largest first, at most limit) and of all groups together
+     */
+    public FunnelResponse result(int limit) {
+        List<Map.Entry<Object, GroupStats>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<Object, GroupStats> entry) -> entry.getValue().viewed).reversed()
+                .thenComparing(entry -> entry.getKey().toString()));
+
+        List<FunnelStepsResponse> groupSteps = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<Object, GroupStats> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            groupSteps.add(entry.getValue().toResponse(entry.getKey().toString()));
+        }
+        FunnelResponse response = new FunnelResponse();
+        response.setGroupBy(groupBy.name().toLowerCase());
+        response.setEventCount(eventCount);
+        response.setGroupCount(groups.size());
+        response.setOverall(overall.toResponse(null));
+        response.setGroups(groupSteps);
+        return response;
+    }
+
+    private GroupStats group(Object key) {
+        return groups.computeIfAbsent(key, k -> new GroupStats());
+    }
+
+    private static final class UserFunnel {
+        private int step = VIEWED;
+        private long time;
+
+        private UserFunnel(long time) {
+            this.time = time;
+        }
+    }
+
+    private static final class GroupStats {
+        private long viewed;
+        private final DurationHistogram viewToCart = new DurationHistogram();
+        private final DurationHistogram cartToPurchase = new DurationHistogram();
+
+        private void addToCart(long millis) {
+            viewToCart.add(millis);
+        }
+
+        private void purchase(long millis) {
+            cartToPurchase.add(millis);
+        }
+
+        private FunnelStepsResponse toResponse(String key) {
+            FunnelStepsResponse steps = new FunnelStepsResponse();
+            steps.setKey(key);
+            steps.setViewed(viewed);
+            steps.setAddedToCart(viewToCart.size());
+            steps.setPurchased(cartToPurchase.size());
+            steps.setViewToCartRate(rate(viewToCart.size(), viewed));
+            steps.setCartToPurchaseRate(rate(cartToPurchase.size(), viewToCart.size()));
+            steps.setViewToPurchaseRate(rate(cartToPurchase.size(), viewed));
+            steps.setMedianViewToCartSeconds(viewToCart.medianSeconds());
+            steps.setMedianCartToPurchaseSeconds(cartToPurchase.medianSeconds());
+            return steps;
+        }
+
+        private static double rate(long converted, long entered) {
+            return entered == 0 ? 0.0 : converted / (double) entered;
+        }
+    }
+
+    /**
+     * Step durations in milliseconds counted in buckets growing by a constant
+     * ratio, so any quantile read from them is within RELATIVE_ACCURACY of a
+     * duration that was added. Only the range of buckets between the shortest
+     * and longest duration is allocated: at most about 650 counters for
+     * durations from 1 ms to 3 years.
+     */
+    static final class DurationHistogram {
+        static final double RELATIVE_ACCURACY = 0.02;
+        private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+        private static final double LOG_GAMMA = Math.log(GAMMA);
+
+        // counts[i] counts durations in (GAMMA^(offset+i-1), GAMMA^(offset+i)]
+        private long[] counts;
+        private int offset;
+        private long zeros;
+        private long size;
+
+        void add(long millis) {
+            size++;
+            if (millis <= 0) {
+                zeros++;
+                return;
+            }
+            int index = (int) Math.ceil(Math.log(millis) / LOG_GAMMA);
+            if (counts == null) {
+                counts = new long[8];
+                offset = index;
+            } else if (index < offset) {
+                long[] grown = new long[counts.length + offset - index];
+                System.arraycopy(counts, 0, grown, offset - index, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index - offset >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length * 2));
+            }
+            counts[index - offset]++;
+        }
+
+        long size() {
+            return size;
+        }
+
+        Double medianSeconds() {
+            if (size == 0) {
+                return null;
+            }
+            double median = (valueAt((size - 1) / 2) + valueAt(size / 2)) / 2.0;
+            return median / 1000.0;
+        }
+
+        /**
+         * Estimated duration of the given rank (0 for the shortest)
+         */
+        private double valueAt(long rank) {
+            long seen = zeros;
+            if (rank < seen) {
+                return 0;
+            }
+            for (int i = 0; ; i++) {
+                seen += counts[i];
+                if (rank < seen) {
+                    // The middle of the bucket relative to its bounds
+                    return 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.practical_test.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Split of a summary range [from, to) into the parts answered by daily
+ * rollups, hourly rollups and raw events. Whole days below the rollup
+ * watermark come from the daily table, the remaining whole hours below it
+ * from the hourly table, and everything else (partial hours at the edges
+ * and the tail from the watermark on) from the events table.
+ */
+public final class RollupRangePlan {
+    private final List<Range> daily = new ArrayList<>();
+    private final List<Range> hourly = new ArrayList<>();
+    private final List<Range> raw = new ArrayList<>();
+
+    private RollupRangePlan() {
+    }
+
+    /**
+     * @param watermark every event before it is counted in the rollups
+     */
+    public static RollupRangePlan of(LocalDateTime from, LocalDateTime to, LocalDateTime watermark) {
+        RollupRangePlan plan = new RollupRangePlan();
+        LocalDateTime rolledUpEnd = min(to, watermark);
+        if (from.isBefore(rolledUpEnd)) {
+            LocalDateTime hourStart = ceil(from, ChronoUnit.HOURS);
+            LocalDateTime hourEnd = rolledUpEnd.truncatedTo(ChronoUnit.HOURS);
+            if (hourStart.isBefore(hourEnd)) {
+                plan.addRaw(from, hourStart);
+                LocalDateTime dayStart = ceil(hourStart, ChronoUnit.DAYS);
+                LocalDateTime dayEnd = hourEnd.truncatedTo(ChronoUnit.DAYS);
+                if (dayStart.isBefore(dayEnd)) {
+                    add(plan.hourly, hourStart, dayStart);
+                    add(plan.daily, dayStart, dayEnd);
+                    add(plan.hourly, dayEnd, hourEnd);
+                } else {
+                    add(plan.hourly, hourStart, hourEnd);
+                }
+                plan.addRaw(hourEnd, rolledUpEnd);
+            } else {
+                plan.addRaw(from, rolledUpEnd);
+            }
+        }
+        plan.addRaw(max(from, watermark), to);
+        return plan;
+    }
+
+    public List<Range> getDaily() {
+        return Collections.unmodifiableList(daily);
+    }
+
+    public List<Range> getHourly() {
+        return Collections.unmodifiableList(hourly);
+    }
+
+    public List<Range> getRaw() {
+        return Collections.unmodifiableList(raw);
+    }
+
+    private void addRaw(LocalDateTime from, LocalDateTime to) {
+        // The edge below the watermark and the tail above it are contiguous: query them as one range
+        if (!raw.isEmpty() && raw.get(raw.size() - 1).to().equals(from) && from.isBefore(to)) {
+            Range last = raw.remove(raw.size() - 1);
+            from = last.from();
+        }
+        add(raw, from, to);
+    }
+
+    private static void add(List<Range> ranges, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            ranges.add(new Range(from, to));
+        }
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Half-open time range [from, to)
+     */
+    public record Range(LocalDateTime from, LocalDateTime to) {
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.cache.SearchResultCodec;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Shared Redis tier behind the per-node search cache.
+ * Every search depends on one version counter, that of its most selective
+ * filter: its user, else its product, category, event type, or all events.
+ * A write sets the counters of the users, products, categories and types it
+ * wrote (and the all-events counter) to a new value of a cluster-wide
+ * sequence, so it only invalidates the searches it can change. A result is
+ * stored with the version it was loaded at, read before the database query,
+ * and only served while that version is current. A cluster-wide epoch, in
+ * every version, invalidates everything after writes too large to publish
+ * event by event, or whose invalidation failed.
+ * Writes are published from a background thread, never on the request
+ * thread; until then this node bypasses the tier for the searches they
+ * affect. They are also sent to the other nodes, which splice the written
+ * events into their local caches. Redis failures are logged and treated as
+ * misses; the database stays the source of truth.
+ */
+@Service
+@ConditionalOnProperty(name = "events.cache.redis.enabled", havingValue = "true")
+public class SearchCacheRedisTier {
+    private static final Logger logger = LoggerFactory.getLogger(SearchCacheRedisTier.class);
+
+    static final String KEY_PREFIX = "events:search:";
+    static final String EPOCH_KEY = KEY_PREFIX + "epoch";
+    static final String SEQUENCE_KEY = KEY_PREFIX + "sequence";
+    static final String VERSION_PREFIX = KEY_PREFIX + "version:";
+    static final String RESULT_PREFIX = KEY_PREFIX + "result";
+    static final String CHANNEL = KEY_PREFIX + "writes";
+    private static final String ALL_EVENTS = "all";
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Value("${events.cache.redis.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${events.cache.redis.publish-queue-capacity:10000}")
+    private int publishQueueCapacity;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private StringRedisTemplate versionTemplate;
+    private RedisTemplate<String, byte[]> resultTemplate;
+    private RedisMessageListenerContainer listenerContainer;
+    private ThreadPoolExecutor publisher;
+    private volatile Consumer<List<Event>> remoteWriteListener = events -> { };
+    private volatile Runnable remoteClearListener = () -> { };
+
+    // Version counters with writes not yet published, by number of pending writes
+    private final Map<String, Integer> unpublished = new ConcurrentHashMap<>();
+    // Epoch bumps requested (by failed invalidations and clears): everything is bypassed until one succeeds
+    private final AtomicLong epochBumpRequests = new AtomicLong();
+    private final AtomicBoolean epochBumpScheduled = new AtomicBoolean();
+
+    // Metrics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder bypassCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        versionTemplate = new StringRedisTemplate(connectionFactory);
+        resultTemplate = new RedisTemplate<>();
+        resultTemplate.setConnectionFactory(connectionFactory);
+        resultTemplate.setKeySerializer(RedisSerializer.string());
+        resultTemplate.setValueSerializer(RedisSerializer.byteArray());
+        resultTemplate.afterPropertiesSet();
+
+        // One thread keeps writes published in commit order
+        publisher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(publishQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "search-cache-publisher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        publisher.shutdown();
+        if (!publisher.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("Search cache invalidations still queued at shutdown were not published");
+            publisher.shutdownNow();
+        }
+        listenerContainer.destroy();
+    }
+
+    /**
+     * Called with the events written by other nodes
+     */
+    public void setRemoteWriteListener(Consumer<List<Event>> remoteWriteListener) {
+        this.remoteWriteListener = remoteWriteListener;
+    }
+
+    /**
+     * Called when another node wrote more events than it could send
+     */
+    public void setRemoteClearListener(Runnable remoteClearListener) {
+        this.remoteClearListener = remoteClearListener;
+    }
+
+    /**
+     * Look a search up, before querying the database on a miss
+     * @return the lookup, whose version the loaded result must be stored with
+     */
+    public Lookup get(EventSearchKey key) {
+        String versionKey = versionKey(key);
+        if (epochBumpRequests.get() > 0) {
+            scheduleEpochBump();
+            bypassCount.increment();
+            return Lookup.BYPASS;
+        }
+        if (unpublished.containsKey(versionKey)) {
+            bypassCount.increment();
+            return Lookup.BYPASS;
+        }
+        try {
+            List<byte[]> values = resultTemplate.opsForValue().multiGet(
+                    List.of(EPOCH_KEY, versionKey, resultKey(key)));
+            long epoch = parseCounter(values.get(0));
+            long version = parseCounter(values.get(1));
+            byte[] data = values.get(2);
+            if (data != null && data.length >= 16) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+                if (in.readLong() == epoch && in.readLong() == version) {
+                    hitCount.increment();
+                    return new Lookup(true, epoch, version, SearchResultCodec.decode(in));
+                }
+            }
+            missCount.increment();
+            return new Lookup(true, epoch, version, null);
+        } catch (IOException | RuntimeException e) {
+            errorCount.increment();
+            logger.warn("Redis search cache read failed: {}", e.getMessage());
+            return Lookup.BYPASS;
+        }
+    }
+
+    /**
+     * Store the result loaded after a missed lookup
+     */
+    public void put(EventSearchKey key, Lookup lookup, List<EventResponse> results) {
+        if (!lookup.cacheable) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + results.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(lookup.epoch);
+            out.writeLong(lookup.version);
+            SearchResultCodec.encode(results, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            resultTemplate.opsForValue().set(resultKey(key), bytes.toByteArray(), Duration.ofSeconds(ttlSeconds));
+        } catch (RuntimeException e) {
+            errorCount.increment();
+            logger.warn("Redis search cache write failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Invalidate the searches committed events can change and send them to the
+     * other nodes, in the background. Called before the events are applied to
+     * the local cache: from then on this node bypasses the tier for those
+     * searches until the invalidation is published.
+     */
+    public void publishWrite(List<Event> events) {
+        Set<String> versionKeys = new LinkedHashSet<>();
+        versionKeys.add(versionKey(ALL_EVENTS));
+        for (Event event : events) {
+            versionKeys.add(versionKey("t", event.getEventType()));
+            if (event.getUserId() != null) {
+                versionKeys.add(versionKey("u", event.getUserId()));
+            }
+            if (event.getProductId() != null) {
+                versionKeys.add(versionKey("p", event.getProductId()));
+            }
+            if (event.getCategory() != null && !event.getCategory().isEmpty()) {
+                versionKeys.add(versionKey("c", event.getCategory()));
+            }
+        }
+        byte[] message = encodeMessage(false, events);
+        submit(versionKeys, () -> {
+            long next = versionTemplate.opsForValue().increment(SEQUENCE_KEY);
+            byte[] value = Long.toString(next).getBytes(StandardCharsets.UTF_8);
+            // Counters outlive the results stored at their previous value
+            Expiration expiration = Expiration.seconds(ttlSeconds * 2);
+            resultTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String versionKey : versionKeys) {
+                    connection.stringCommands().set(versionKey.getBytes(StandardCharsets.UTF_8), value,
+                            expiration, SetOption.upsert());
+                }
+                connection.publish(CHANNEL.getBytes(StandardCharsets.UTF_8), message);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Invalidate every search after a write too large to send event by event
+     * (e.g. a bulk load); the other nodes clear their local caches
+     */
+    public void publishClear() {
+        epochBumpRequests.incrementAndGet();
+        byte[] message = encodeMessage(true, List.of());
+        submit(Set.of(), () -> {
+            bumpEpoch();
+            resultTemplate.convertAndSend(CHANNEL, message);
+        });
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Lookups not served by the tier while a write to their searches was being published
+     */
+    public long getBypassCount() {
+        return bypassCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * Wait until everything queued so far has been published
+     */
+    boolean awaitPublished(Duration timeout) throws Exception {
+        Future<?> marker = publisher.submit(() -> { });
+        try {
+            marker.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private void submit(Set<String> versionKeys, Runnable publish) {
+        for (String versionKey : versionKeys) {
+            unpublished.merge(versionKey, 1, Integer::sum);
+        }
+        try {
+            publisher.execute(() -> {
+                try {
+                    publish.run();
+                } catch (RuntimeException e) {
+                    invalidationFailed(e);
+                } finally {
+                    release(versionKeys);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            invalidationFailed(e);
+            release(versionKeys);
+        }
+    }
+
+    /**
+     * Searches the write should have invalidated may now be stale: bypass them
+     * all until the epoch is bumped
+     */
+    private void invalidationFailed(Exception e) {
+        errorCount.increment();
+        epochBumpRequests.incrementAndGet();
+        logger.warn("Redis search cache invalidation failed, bypassing the shared tier until it recovers: {}",
+                e.getMessage());
+    }
+
+    private void release(Set<String> versionKeys) {
+        for (String versionKey : versionKeys) {
+            unpublished.computeIfPresent(versionKey, (k, pending) -> pending > 1 ? pending - 1 : null);
+        }
+    }
+
+    private void scheduleEpochBump() {
+        if (!epochBumpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            publisher.execute(() -> {
+                epochBumpScheduled.set(false);
+                try {
+                    bumpEpoch();
+                } catch (RuntimeException e) {
+                    errorCount.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            epochBumpScheduled.set(false);
+        }
+    }
+
+    private void bumpEpoch() {
+        long requests = epochBumpRequests.get();
+        versionTemplate.opsForValue().increment(EPOCH_KEY);
+        // Requests made since are not covered by this bump
+        epochBumpRequests.compareAndSet(requests, 0);
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        byte[] body = message.getBody();
+        if (body == null || body.length == 0) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            String sender = in.readUTF();
+            boolean clear = in.readBoolean();
+            if (nodeId.equals(sender)) {
+                return;
+            }
+            if (clear) {
+                remoteClearListener.run();
+                return;
+            }
+            List<EventResponse> written = SearchResultCodec.decode(in);
+            List<Event> events = new ArrayList<>(written.size());
+            for (EventResponse response : written) {
+                events.add(toEvent(response));
+            }
+            remoteWriteListener.accept(events);
+        } catch (IOException | RuntimeException e) {
+            errorCount.increment();
+            logger.warn("Could not apply a search cache invalidation message: {}", e.getMessage());
+        }
+    }
+
+    private byte[] encodeMessage(boolean clear, List<Event> events) {
+        List<EventResponse> written = new ArrayList<>(events.size());
+        for (Event event : events) {
+            written.add(new EventResponse(event.getId(), event.getUserId(), event.getEventType(),
+                    event.getProductId(), event.getCategory(), event.getTimestamp()));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(nodeId);
+            out.writeBoolean(clear);
+            SearchResultCodec.encode(written, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long parseCounter(byte[] value) {
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.US_ASCII)) : 0L;
+    }
+
+    private static Event toEvent(EventResponse response) {
+        Event event = new Event();
+        event.setId(response.getId());
+        event.setUserId(response.getUserId());
+        event.setEventType(response.getEventType());
+        event.setProductId(response.getProductId());
+        event.setCategory(response.getCategory());
+        event.setTimestamp(response.getTimestamp());
+        return event;
+    }
+
+    /**
+     * Counter of the most selective filter of a search: every event the
+     * search can match sets it
+     */
+    static String versionKey(EventSearchKey key) {
+        if (key.getUserId() != null) {
+            return versionKey("u", key.getUserId());
+        }
+        if (key.getProductId() != null) {
+            return versionKey("p", key.getProductId());
+        }
+        if (key.getCategory() != null && !key.getCategory().isEmpty()) {
+            return versionKey("c", key.getCategory());
+        }
+        if (key.getEventType() != null) {
+            return versionKey("t", key.getEventType());
+        }
+        return versionKey(ALL_EVENTS);
+    }
+
+    private static String versionKey(String dimension, Object value) {
+        StringBuilder versionKey = new StringBuilder(VERSION_PREFIX).append(dimension);
+        append(versionKey, value);
+        return versionKey.toString();
+    }
+
+    private static String versionKey(String dimension) {
+        return VERSION_PREFIX + dimension;
+    }
+
+    /**
+     * Length-prefixed search fields, so values containing separators cannot collide
+     */
+    static String resultKey(EventSearchKey key) {
+        StringBuilder resultKey = new StringBuilder(RESULT_PREFIX);
+        append(resultKey, key.getUserId());
+        append(resultKey, key.getEventType());
+        append(resultKey, key.getCategory());
+        append(resultKey, key.getProductId());
+        append(resultKey, key.getFrom());
+        append(resultKey, key.getTo());
+        append(resultKey, key.getMaxRows());
+        return resultKey.toString();
+    }
+
+    private static void append(StringBuilder redisKey, Object value) {
+        if (value == null) {
+            redisKey.append(":-");
+            return;
+        }
+        String text = value.toString();
+        redisKey.append(':').append(text.length()).append('.').append(text);
+    }
+
+    /**
+     * Outcome of a lookup: the result on a hit, and the version a loaded result is stored with
+     */
+    public static final class Lookup {
+        // Nothing is read, and nothing stored
+        static final Lookup BYPASS = new Lookup(false, 0L, 0L, null);
+
+        private final boolean cacheable;
+        private final long epoch;
+        private final long version;
+        private final List<EventResponse> results;
+
+        private Lookup(boolean cacheable, long epoch, long version, List<EventResponse> results) {
+            this.cacheable = cacheable;
+            this.epoch = epoch;
+            this.version = version;
+            this.results = results;
+        }
+
+        /**
+         * The shared result, or null on a miss
+         */
+        public List<EventResponse> getResults() {
+            return results;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- Schema previously created by hibernate.ddl-auto=update.
+-- IF NOT EXISTS lets existing databases adopt Flyway (baseline-on-migrate, baseline version 0).
+
+CREATE TABLE IF NOT EXISTS auth_users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    category    VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price       FLOAT(53) NOT NULL,
+    stock       INTEGER
+);
+
+-- Increment must match the allocationSize of the pooled-lo events_seq generator
+CREATE SEQUENCE IF NOT EXISTS events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS events (
+    id         BIGINT NOT NULL PRIMARY KEY,
+    user_id    BIGINT NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    product_id BIGINT,
+    category   VARCHAR(255),
+    timestamp  TIMESTAMP(6) NOT NULL
+);
+
+-- Databases adopted from ddl-auto=update already hold IDENTITY ids 1..N:
+-- start the sequence after them, or the generator hands out existing ids
+SELECT setval('events_seq', COALESCE(max(id), 0) + 1, false) FROM events;
@@ -0,0 +1,27 @@
+-- Indexes for EventRepositoryImpl searches: equality filters first, then the
+-- (timestamp desc, id desc) keyset order, so a page is an index range scan
+-- that stops after LIMIT rows instead of a sort over every match.
+-- Built CONCURRENTLY so writes to a large events table are not blocked.
+
+-- userId, optionally with other filters
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_user_ts
+    ON events (user_id, timestamp DESC, id DESC);
+
+-- category and/or eventType
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_category_type_ts
+    ON events (category, event_type, timestamp DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_type_ts
+    ON events (event_type, timestamp DESC, id DESC);
+
+-- productId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_product_ts
+    ON events (product_id, timestamp DESC, id DESC);
+
+-- Unfiltered pages and cursors
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_ts
+    ON events (timestamp DESC, id DESC);
+
+-- Timestamp ranges without ORDER BY/LIMIT (exports, counts): rows arrive in
+-- roughly timestamp order, so a BRIN index prunes block ranges at a tiny size
+CREATE INDEX CONCURRENTLY IF NOT EXISTS brin_events_timestamp
+    ON events USING BRIN (timestamp) WITH (pages_per_range = 32);
@@ -0,0 +1,57 @@
+-- Range-partition events by month of timestamp, so time-bounded searches scan
+-- only the matching partitions and retention drops whole partitions instead
+-- of deleting rows. Existing rows are copied into the new table: on a large
+-- table run this migration in a maintenance window.
+-- EventPartitionMaintenance keeps creating future partitions and dropping
+-- expired ones; the default partition catches anything outside them.
+
+ALTER TABLE events RENAME TO events_unpartitioned;
+DROP INDEX IF EXISTS idx_events_user_ts;
+DROP INDEX IF EXISTS idx_events_category_type_ts;
+DROP INDEX IF EXISTS idx_events_type_ts;
+DROP INDEX IF EXISTS idx_events_product_ts;
+DROP INDEX IF EXISTS idx_events_ts;
+DROP INDEX IF EXISTS brin_events_timestamp;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE events (
+    id         BIGINT NOT NULL,
+    user_id    BIGINT NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    product_id BIGINT,
+    category   VARCHAR(255),
+    timestamp  TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE events_default PARTITION OF events DEFAULT;
+
+-- Monthly partitions from the oldest existing event to three months ahead
+DO $$
+DECLARE
+    first_month DATE;
+    month       DATE;
+BEGIN
+    SELECT date_trunc('month', LEAST(min(timestamp), now()))::date INTO first_month FROM events_unpartitioned;
+    month := COALESCE(first_month, date_trunc('month', now())::date);
+    WHILE month <= date_trunc('month', now())::date + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF events FOR VALUES FROM (%L) TO (%L)',
+                       'events_' || to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::date);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO events (id, user_id, event_type, product_id, category, timestamp)
+SELECT id, user_id, event_type, product_id, category, timestamp FROM events_unpartitioned;
+
+DROP TABLE events_unpartitioned;
+
+-- Same indexes as V2, now partitioned: created on every existing and future partition
+CREATE INDEX idx_events_user_ts ON events (user_id, timestamp DESC, id DESC);
+CREATE INDEX idx_events_category_type_ts ON events (category, event_type, timestamp DESC, id DESC);
+CREATE INDEX idx_events_type_ts ON events (event_type, timestamp DESC, id DESC);
+CREATE INDEX idx_events_product_ts ON events (product_id, timestamp DESC, id DESC);
+CREATE INDEX idx_events_ts ON events (timestamp DESC, id DESC);
+CREATE INDEX brin_events_timestamp ON events USING BRIN (timestamp) WITH (pages_per_range = 32);
+
+ANALYZE events;
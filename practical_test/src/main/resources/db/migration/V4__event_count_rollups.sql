@@ -0,0 +1,38 @@
+-- Pre-aggregated event counts per hour and per day for historical summaries.
+-- EventRollups rolls up complete hours of events below the watermark; events
+-- written later with a timestamp below it are added by the write path in the
+-- same transaction. NULLS NOT DISTINCT (PostgreSQL 15+) lets events without
+-- a category or product share one row per bucket and be upserted.
+
+CREATE TABLE event_counts_hourly (
+    bucket      TIMESTAMP(6) NOT NULL,
+    event_type  VARCHAR(255) NOT NULL,
+    category    VARCHAR(255),
+    product_id  BIGINT,
+    event_count BIGINT NOT NULL
+);
+
+CREATE UNIQUE INDEX uq_event_counts_hourly
+    ON event_counts_hourly (bucket, event_type, category, product_id) NULLS NOT DISTINCT;
+
+CREATE TABLE event_counts_daily (
+    bucket      TIMESTAMP(6) NOT NULL,
+    event_type  VARCHAR(255) NOT NULL,
+    category    VARCHAR(255),
+    product_id  BIGINT,
+    event_count BIGINT NOT NULL
+);
+
+CREATE UNIQUE INDEX uq_event_counts_daily
+    ON event_counts_daily (bucket, event_type, category, product_id) NULLS NOT DISTINCT;
+
+-- Every event with a timestamp before rolled_up_to is counted in both tables.
+-- Starts at the oldest event, so the first runs roll up the existing history.
+CREATE TABLE event_rollup_watermark (
+    id           INTEGER PRIMARY KEY CHECK (id = 1),
+    rolled_up_to TIMESTAMP(6) NOT NULL
+);
+
+INSERT INTO event_rollup_watermark (id, rolled_up_to)
+SELECT 1, COALESCE(date_trunc('hour', min(timestamp)), date_trunc('hour', now()::timestamp))
+FROM events;
@@ -0,0 +1,15 @@
+-- HyperLogLog sketches of the distinct users per day, event type and category.
+-- Every node merges its in-memory sketches into these rows (register-wise
+-- maximum, so repeated merges are harmless); GET /events/distinct-users merges
+-- them with the local sketches. registers holds the precision byte followed by
+-- one byte per register, 4097 bytes at the default precision of 12.
+
+CREATE TABLE event_user_sketches (
+    bucket     DATE NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    category   VARCHAR(255),
+    registers  BYTEA NOT NULL
+);
+
+CREATE UNIQUE INDEX uq_event_user_sketches
+    ON event_user_sketches (bucket, event_type, category) NULLS NOT DISTINCT;
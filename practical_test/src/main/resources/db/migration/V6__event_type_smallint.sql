@@ -0,0 +1,23 @@
+-- event_type becomes the ordinal of the EventType enum (VIEW = 0,
+-- ADD_TO_CART = 1, PURCHASE = 2): 2 bytes instead of a 5-12 byte string per
+-- row and index entry, and compared as an integer. Values were stored
+-- upper-case, but are trimmed and folded again in case an old row was not.
+-- Each ALTER rewrites its table (all partitions of events) and rebuilds its
+-- indexes under an exclusive lock, so run this in a maintenance window on a
+-- large database. A value that is not a known type fails the migration.
+
+ALTER TABLE events
+    ALTER COLUMN event_type TYPE SMALLINT
+    USING CASE upper(trim(event_type)) WHEN 'VIEW' THEN 0 WHEN 'ADD_TO_CART' THEN 1 WHEN 'PURCHASE' THEN 2 END;
+
+ALTER TABLE event_counts_hourly
+    ALTER COLUMN event_type TYPE SMALLINT
+    USING CASE upper(trim(event_type)) WHEN 'VIEW' THEN 0 WHEN 'ADD_TO_CART' THEN 1 WHEN 'PURCHASE' THEN 2 END;
+
+ALTER TABLE event_counts_daily
+    ALTER COLUMN event_type TYPE SMALLINT
+    USING CASE upper(trim(event_type)) WHEN 'VIEW' THEN 0 WHEN 'ADD_TO_CART' THEN 1 WHEN 'PURCHASE' THEN 2 END;
+
+ALTER TABLE event_user_sketches
+    ALTER COLUMN event_type TYPE SMALLINT
+    USING CASE upper(trim(event_type)) WHEN 'VIEW' THEN 0 WHEN 'ADD_TO_CART' THEN 1 WHEN 'PURCHASE' THEN 2 END;
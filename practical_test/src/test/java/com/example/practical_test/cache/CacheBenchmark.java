@@ -0,0 +1,114 @@
+package com.example.practical_test.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * JMH comparison of the synchronized LRUCache and TinyLfuCache on a skewed
+ * cache-aside workload at 1, 8 and 32 threads.
+ * A miss burns loadCost JMH tokens to stand in for the query it triggers
+ * (0 measures the cache alone), and the hits and misses counters give the
+ * hit ratio of each policy.
+ * Run with: mvn test -Dtest=CacheBenchmark -Dbenchmark=true
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int KEY_SPACE = 1_000;
+    private static final int MASK = (1 << 16) - 1;
+
+    @Param({"LRUCache", "TinyLfuCache"})
+    public String cacheType;
+
+    @Param({"0", "5000"})
+    public long loadCost;
+
+    private Function<Integer, Integer> get;
+    private BiConsumer<Integer, Integer> put;
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        if ("LRUCache".equals(cacheType)) {
+            LRUCache<Integer, Integer> cache = new LRUCache<>(100);
+            get = cache::get;
+            put = cache::put;
+        } else {
+            TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+            get = cache::get;
+            put = cache::put;
+        }
+
+        // Zipf-like skew: a few hot searches and a long tail of rare ones
+        Random random = new Random(1);
+        keys = new Integer[MASK + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (int) (KEY_SPACE * Math.pow(random.nextDouble(), 3));
+        }
+        for (Integer key : keys) {
+            put.accept(key, key);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadState {
+        int index = new Random().nextInt();
+        public long hits;
+        public long misses;
+    }
+
+    /**
+     * Cache-aside access as done by EventService.getEvents: read, and load + put on a miss
+     */
+    @Benchmark
+    public Integer getOrLoad(ThreadState state) {
+        Integer key = keys[state.index++ & MASK];
+        Integer value = get.apply(key);
+        if (value == null) {
+            state.misses++;
+            Blackhole.consumeCPU(loadCost);
+            put.accept(key, key);
+            return key;
+        }
+        state.hits++;
+        return value;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void runBenchmark() throws Exception {
+        for (int threads : new int[] {1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(CacheBenchmark.class.getSimpleName() + ".getOrLoad")
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactEventListTest {
+    private static final EventType[] TYPES = EventType.values();
+    private static final String[] CATEGORIES = {"electronics", "books", "toys", "garden"};
+
+    private final EventDictionary dictionary = new EventDictionary();
+
+    @Test
+    void buildsTheSameEventsItWasGiven() {
+        List<EventResponse> events = List.of(
+                new EventResponse(3L, 7L, EventType.PURCHASE, 42L, "books", LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_456_000)),
+                new EventResponse(2L, 7L, EventType.VIEW, null, null, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000)));
+
+        CompactEventList compact = CompactEventList.of(dictionary, events);
+
+        assertThat(compact).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(events);
+        assertThat(CompactEventList.of(dictionary, compact)).isSameAs(compact);
+    }
+
+    @Test
+    void keepsCategoriesPastTheDictionaryCapacityAsStrings() {
+        EventDictionary small = new EventDictionary(2);
+        List<EventResponse> events = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            events.add(new EventResponse((long) i, 1L, EventType.VIEW, null, i == 5 ? null : "category-" + (i % 4),
+                    LocalDateTime.of(2024, 3, 1, 0, 0).plusSeconds(i)));
+        }
+
+        CompactEventList compact = CompactEventList.of(small, events);
+        CompactEventList.Builder copy = new CompactEventList.Builder(small, 0);
+        for (int i = 0; i < compact.size(); i++) {
+            copy.add(compact, i);
+        }
+
+        assertThat(small.size()).isEqualTo(2);
+        assertThat(small.categoryCode("category-3")).isEqualTo(EventDictionary.UNCODED);
+        assertThat(compact).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(events);
+        assertThat(copy.build()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void takesAFractionOfTheMemoryOfEventResponses() {
+        int count = 10_000;
+        List<EventResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Strings are separate objects per row, as read from the database
+            responses.add(new EventResponse((long) i, (long) (i % 500), TYPES[i % TYPES.length],
+                    (long) (i % 2000), new String(CATEGORIES[i % CATEGORIES.length]),
+                    LocalDateTime.of(2024, 3, 1, 0, 0).plusSeconds(i)));
+        }
+        CompactEventList compact = CompactEventList.of(dictionary, responses);
+
+        double responseBytes = GraphLayout.parseInstance(responses).totalSize() / (double) count;
+        double compactBytes = GraphLayout.parseInstance(compact).totalSize() / (double) count;
+        String measured = String.format("%.1f bytes per event compact, %.1f as EventResponse", compactBytes, responseBytes);
+
+        assertThat(compactBytes).as(measured).isLessThan(40);
+        assertThat(responseBytes / compactBytes).as(measured).isGreaterThan(4);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.CacheStatsResponse;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventSearchCacheTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    private final EventSearchCache cache = new EventSearchCache(10, 100, 20,
+            new EventDictionary(), EventSearchCacheTest::toResponse);
+
+    @Test
+    void countsHitsMissesPutsAndLoadTime() {
+        EventSearchKey key = key("books");
+        assertThat(cache.get(key)).isNull();
+        cache.load(key, () -> rows(3));
+        cache.get(key);
+        cache.get(key);
+        cache.get(key);
+
+        CacheStatsResponse stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(3);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRatio()).isEqualTo(0.75);
+        assertThat(stats.getPutCount()).isEqualTo(1);
+        assertThat(stats.getCacheWeight()).isEqualTo(3);
+        assertThat(stats.getAverageLoadPenaltyMillis()).isGreaterThanOrEqualTo(0.0);
+    }
+
+    @Test
+    void refusesResultsAboveTheEntryLimit() {
+        EventSearchKey key = key("books");
+        List<EventResponse> result = cache.load(key, () -> rows(21));
+
+        assertThat(result).hasSize(21);
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.stats().getPutCount()).isZero();
+    }
+
+    @Test
+    void countsEvictionsAndInvalidations() {
+        for (int i = 0; i < 12; i++) {
+            cache.load(key("category-" + i), () -> rows(10));
+        }
+        CacheStatsResponse stats = cache.stats();
+        assertThat(stats.getCacheWeight()).isLessThanOrEqualTo(100);
+        assertThat(stats.getEvictionCount()).isEqualTo(12 - stats.getCacheSize());
+
+        int cached = stats.getCacheSize();
+        cache.clear();
+        assertThat(cache.stats().getInvalidationCount()).isEqualTo(cached);
+    }
+
+    @Test
+    void dropsEntriesThatSplicingGrowsPastTheEntryLimit() {
+        EventSearchKey key = key("books");
+        cache.load(key, () -> rows(20));
+
+        Event event = new Event();
+        event.setId(1_000L);
+        event.setUserId(1L);
+        event.setEventType(EventType.VIEW);
+        event.setProductId(1L);
+        event.setCategory("books");
+        event.setTimestamp(BASE.plusDays(1));
+        cache.apply(List.of(event));
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.stats().getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesOnTheSameKeyRunOneLoad() throws Exception {
+        int callers = 32;
+        EventSearchKey key = key("books");
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<EventResponse>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.load(key, () -> {
+                    queries.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return rows(3);
+                });
+            }));
+        }
+        start.countDown();
+        // Hold the query until every other caller is waiting on it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.stats().getDeduplicatedLoadCount() < callers - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<List<EventResponse>> result : results) {
+            assertThat(result.get()).hasSize(3);
+        }
+        executor.shutdown();
+        assertThat(queries).hasValue(1);
+        assertThat(cache.stats().getDeduplicatedLoadCount()).isEqualTo(callers - 1);
+    }
+
+    @Test
+    void waitingCallersSeeTheFailureOfTheSharedLoad() throws Exception {
+        EventSearchKey key = key("books");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> leader = executor.submit(() -> cache.load(key, () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("database down");
+        }));
+        loading.await();
+
+        Future<?> waiter = executor.submit(() -> cache.load(key, () -> rows(1)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.stats().getDeduplicatedLoadCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        assertThatThrownBy(leader::get).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(waiter::get).hasCauseInstanceOf(IllegalStateException.class);
+        executor.shutdown();
+
+        assertThat(cache.stats().getDeduplicatedLoadCount()).isEqualTo(1);
+        assertThat(cache.load(key, () -> rows(2))).hasSize(2);
+    }
+
+    private static EventSearchKey key(String category) {
+        return new EventSearchKey(null, null, category, null, null, null);
+    }
+
+    private static List<EventResponse> rows(int count) {
+        List<EventResponse> rows = new ArrayList<>();
+        for (int i = count; i > 0; i--) {
+            rows.add(new EventResponse((long) i, 1L, EventType.VIEW, 1L, "books", BASE.plusSeconds(i)));
+        }
+        return rows;
+    }
+
+    private static EventResponse toResponse(Event event) {
+        return new EventResponse(event.getId(), event.getUserId(), event.getEventType(),
+                event.getProductId(), event.getCategory(), event.getTimestamp());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSearchKeyIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    @Test
+    void matchingReturnsOnlyKeysWhosePredicatesAcceptTheEvent() {
+        EventSearchKeyIndex index = new EventSearchKeyIndex();
+        EventSearchKey sameUser = new EventSearchKey(1L, null, null, null, null, null);
+        EventSearchKey otherUser = new EventSearchKey(2L, null, null, null, null, null);
+        EventSearchKey sameCategory = new EventSearchKey(null, EventType.VIEW, "books", null, null, null);
+        EventSearchKey otherType = new EventSearchKey(null, EventType.PURCHASE, "books", null, null, null);
+        EventSearchKey inRange = new EventSearchKey(null, null, null, null, NOW.minusHours(1), NOW.plusHours(1));
+        EventSearchKey pastRange = new EventSearchKey(null, null, null, null, null, NOW.minusHours(1));
+        EventSearchKey unfiltered = new EventSearchKey(null, null, "", null, null, null);
+        List.of(sameUser, otherUser, sameCategory, otherType, inRange, pastRange, unfiltered).forEach(index::add);
+
+        List<EventSearchKey> matching = index.matching(event(1L, EventType.VIEW, "books", 7L, NOW));
+
+        assertThat(matching).containsExactlyInAnyOrder(sameUser, sameCategory, inRange, unfiltered);
+    }
+
+    @Test
+    void removedKeysAreNoLongerMatched() {
+        EventSearchKeyIndex index = new EventSearchKeyIndex();
+        EventSearchKey key = new EventSearchKey(1L, null, null, null, null, null);
+        index.add(key);
+        index.remove(key);
+
+        assertThat(index.matching(event(1L, EventType.VIEW, null, null, NOW))).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    /**
+     * Mixed read/write workload over per-user dashboard queries: clearing the whole
+     * cache on every write against evicting only the searches a write can affect
+     */
+    @Test
+    void targetedInvalidationKeepsUnrelatedEntriesCached() {
+        double clearAllHitRate = runMixedWorkload(false);
+        double targetedHitRate = runMixedWorkload(true);
+
+        System.out.printf("Search cache hit rate with 10%% writes: clear-all %.1f%%, targeted %.1f%%%n",
+                clearAllHitRate * 100, targetedHitRate * 100);
+        assertThat(targetedHitRate).isGreaterThan(clearAllHitRate + 0.5);
+    }
+
+    private double runMixedWorkload(boolean targeted) {
+        EventSearchKeyIndex index = new EventSearchKeyIndex();
+        TinyLfuCache<EventSearchKey, Boolean> cache = new TinyLfuCache<>(100, (key, value) -> index.remove(key));
+        EventType[] types = EventType.values();
+        List<EventSearchKey> queries = new ArrayList<>();
+        for (long user = 0; user < 50; user++) {
+            queries.add(new EventSearchKey(user, null, null, null, null, null));
+            queries.add(new EventSearchKey(user, EventType.PURCHASE, null, null, null, null));
+        }
+
+        Random random = new Random(42);
+        int reads = 0;
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (random.nextInt(10) == 0) {
+                Event event = event((long) random.nextInt(1_000), types[random.nextInt(types.length)],
+                        "books", (long) random.nextInt(100), NOW);
+                if (targeted) {
+                    for (EventSearchKey key : index.matching(event)) {
+                        cache.remove(key);
+                        index.remove(key);
+                    }
+                } else {
+                    cache.clear();
+                    index.clear();
+                }
+            } else {
+                EventSearchKey key = queries.get(random.nextInt(queries.size()));
+                reads++;
+                if (cache.get(key) != null) {
+                    hits++;
+                } else {
+                    index.add(key);
+                    cache.put(key, Boolean.TRUE);
+                }
+            }
+        }
+        return hits / (double) reads;
+    }
+
+    private Event event(Long userId, EventType type, String category, Long productId, LocalDateTime timestamp) {
+        return new Event(null, userId, type, productId, category, timestamp);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.practical_test.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesWithinThreeStandardErrors() {
+        for (int n : new int[] {100, 10_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (long i = 0; i < n; i++) {
+                sketch.add(i);
+                sketch.add(i); // Duplicates are not counted
+            }
+            assertThat((double) sketch.estimate()).isCloseTo(n, within(3 * sketch.relativeStandardError() * n));
+        }
+    }
+
+    @Test
+    void mergeEqualsSketchOfTheUnionAndIsIdempotent() {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        HyperLogLog union = new HyperLogLog(10);
+        for (long i = 0; i < 50_000; i++) {
+            first.add(i);
+            union.add(i);
+        }
+        for (long i = 25_000; i < 80_000; i++) {
+            second.add(i);
+            union.add(i);
+        }
+
+        assertThat(first.merge(second)).isTrue();
+        assertThat(first.toByteArray()).isEqualTo(union.toByteArray());
+        assertThat(first.merge(second)).isFalse();
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+        assertThatThrownBy(() -> first.merge(new HyperLogLog(12)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void smallSketchesStaySparseAndMatchDenseOnes() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        HyperLogLog dense = HyperLogLog.fromByteArray(new HyperLogLog(12).toByteArray());
+        for (long i = 0; i < 200; i++) {
+            sketch.add(i);
+            dense.add(i);
+        }
+
+        assertThat(sketch.isSparse()).isTrue();
+        assertThat(dense.isSparse()).isFalse();
+        assertThat(sketch.toByteArray()).isEqualTo(dense.toByteArray());
+        assertThat(sketch.estimate()).isEqualTo(dense.estimate());
+        HyperLogLog merged = new HyperLogLog(12);
+        assertThat(merged.merge(sketch)).isTrue();
+        assertThat(merged.isSparse()).isTrue();
+        assertThat(merged.toByteArray()).isEqualTo(dense.toByteArray());
+
+        // Past 4096 / 16 registers the sketch turns dense
+        for (long i = 200; i < 5_000; i++) {
+            sketch.add(i);
+            dense.add(i);
+        }
+        assertThat(sketch.isSparse()).isFalse();
+        assertThat(sketch.toByteArray()).isEqualTo(dense.toByteArray());
+        assertThat(merged.merge(dense)).isTrue();
+        assertThat(merged.isSparse()).isFalse();
+        assertThat(merged.toByteArray()).isEqualTo(dense.toByteArray());
+    }
+
+    @Test
+    void roundTripsThroughBytesOfFixedSize() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (long i = 0; i < 200_000; i++) {
+            sketch.add(i * 31);
+        }
+        byte[] bytes = sketch.toByteArray();
+
+        assertThat(bytes).hasSize(4097);
+        HyperLogLog restored = HyperLogLog.fromByteArray(bytes);
+        assertThat(restored.precision()).isEqualTo(12);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(new HyperLogLog(12).estimate()).isZero();
+    }
+}
@@ -6,11 +6,12 @@ import java.util.Map;
 /**
  * Thread-safe LRU (Least Recently Used) Cache implementation
  * Uses LinkedHashMap with access-order to maintain insertion order
+ * Kept as the synchronized baseline of CacheBenchmark, TinyLfuCache replaced it.
  */
 public class LRUCache<K, V> {
     private final int maxSize;
     private final Map<K, V> cache;
-    
+
     public LRUCache(int maxSize) {
         this.maxSize = maxSize;
         // LinkedHashMap with accessOrder=true maintains LRU order
@@ -23,29 +24,28 @@ public class LRUCache<K, V> {
             }
         };
     }
-    
+
     public synchronized V get(K key) {
         return cache.get(key);
     }
-    
+
     public synchronized void put(K key, V value) {
         cache.put(key, value);
     }
-    
+
     public synchronized void remove(K key) {
         cache.remove(key);
     }
-    
+
     public synchronized void clear() {
         cache.clear();
     }
-    
+
     public synchronized int size() {
         return cache.size();
     }
-    
+
     public synchronized boolean containsKey(K key) {
         return cache.containsKey(key);
     }
 }
-
@@ -0,0 +1,121 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RecentEventWindowTest {
+    private static final EventType[] TYPES = EventType.values();
+    private static final String[] CATEGORIES = {"electronics", "books", "toys", null};
+
+    @Test
+    void summaryCountsOnlyEventsInsideTheWindow() {
+        RecentEventWindow window = new RecentEventWindow(3, new EventDictionary());
+        window.add(event(EventType.VIEW, "books"));
+        window.add(event(EventType.VIEW, "toys"));
+        window.add(event(EventType.PURCHASE, "books"));
+        window.add(event(EventType.ADD_TO_CART, "books"));
+
+        assertThat(window.summary(null)).containsOnly(
+                Map.entry(EventType.VIEW, 1L), Map.entry(EventType.PURCHASE, 1L), Map.entry(EventType.ADD_TO_CART, 1L));
+        assertThat(window.summary("books")).containsOnly(
+                Map.entry(EventType.PURCHASE, 1L), Map.entry(EventType.ADD_TO_CART, 1L));
+        assertThat(window.summary("unknown")).isEmpty();
+    }
+
+    @Test
+    void producerDoesNotWaitForANewerProducerFillingItsSlot() {
+        RecentEventWindow window = new RecentEventWindow(2, new EventDictionary());
+        // The producer of sequence 2 took slot 0 and was preempted before publishing it
+        AtomicLongArray slotSequences = (AtomicLongArray) ReflectionTestUtils.getField(window, "slotSequences");
+        slotSequences.set(0, -2 - 2);
+        AtomicLong sequence = (AtomicLong) ReflectionTestUtils.getField(window, "sequence");
+        sequence.set(0);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> window.add(event(EventType.VIEW, "books")));
+        window.add(event(EventType.PURCHASE, "books"));
+
+        assertThat(window.latest(10)).extracting(EventResponse::getEventType).containsExactly(EventType.PURCHASE);
+        assertThat(window.summary("books")).containsOnly(Map.entry(EventType.PURCHASE, 1L));
+    }
+
+    @Test
+    void categoriesLeavingTheWindowDropTheirCounterRows() {
+        RecentEventWindow window = new RecentEventWindow(2, new EventDictionary());
+        for (int i = 0; i < 100; i++) {
+            window.add(event(EventType.VIEW, "category-" + i));
+        }
+
+        EventCounterTable counters = (EventCounterTable) ReflectionTestUtils.getField(window, "counters");
+        assertThat(counters.categoryCount()).isEqualTo(2);
+        assertThat(window.summary("category-0")).isEmpty();
+        assertThat(window.summary("category-99")).containsOnly(Map.entry(EventType.VIEW, 1L));
+        assertThat(window.summary(null)).containsOnly(Map.entry(EventType.VIEW, 2L));
+    }
+
+    @Test
+    void countersMatchBruteForceRecountUnderConcurrentIngestion() throws Exception {
+        // Room for two category codes: the other categories are kept as Strings
+        RecentEventWindow window = new RecentEventWindow(500, new EventDictionary(2));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int round = 0; round < 5; round++) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> producers = new ArrayList<>();
+            for (int p = 0; p < 8; p++) {
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        window.add(event(TYPES[random.nextInt(TYPES.length)],
+                                CATEGORIES[random.nextInt(CATEGORIES.length)]));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+
+            List<EventResponse> snapshot = window.snapshot();
+            assertThat(snapshot).hasSize(500);
+            assertThat(window.summary(null)).isEqualTo(recount(snapshot, null));
+            for (String category : CATEGORIES) {
+                if (category != null) {
+                    assertThat(window.summary(category)).isEqualTo(recount(snapshot, category));
+                }
+            }
+        }
+        executor.shutdown();
+    }
+
+    private Map<EventType, Long> recount(List<EventResponse> events, String category) {
+        return events.stream()
+                .filter(e -> category == null || category.equals(e.getCategory()))
+                .collect(Collectors.groupingBy(EventResponse::getEventType, Collectors.counting()));
+    }
+
+    private Event event(EventType type, String category) {
+        return new Event(null, 1L, type, 1L, category, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.MutableClock;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RollingEventCountersTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    private final MutableClock clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+    private final RollingEventCounters counters = new RollingEventCounters(clock);
+
+    @Test
+    void countsEventsInsideTheWindowOnly() {
+        counters.add(event(EventType.VIEW, "books", START.minusSeconds(90)));
+        counters.add(event(EventType.VIEW, "books", START.minusSeconds(30)));
+        counters.add(event(EventType.PURCHASE, "toys", START.minusSeconds(5)));
+
+        assertThat(counters.summary(Duration.ofMinutes(1), null))
+                .containsOnly(Map.entry(EventType.VIEW, 1L), Map.entry(EventType.PURCHASE, 1L));
+        assertThat(counters.summary(Duration.ofMinutes(5), null))
+                .containsOnly(Map.entry(EventType.VIEW, 2L), Map.entry(EventType.PURCHASE, 1L));
+        assertThat(counters.summary(Duration.ofMinutes(5), "books"))
+                .containsOnly(Map.entry(EventType.VIEW, 2L));
+    }
+
+    @Test
+    void expiredBucketsAreReusedForNewerEvents() {
+        counters.add(event(EventType.VIEW, null, START));
+
+        clock.advance(Duration.ofMinutes(10));
+        counters.add(event(EventType.ADD_TO_CART, null, START.plusMinutes(10)));
+
+        assertThat(counters.summary(Duration.ofMinutes(5), null)).containsOnly(Map.entry(EventType.ADD_TO_CART, 1L));
+        assertThat(counters.summary(Duration.ofHours(1), null))
+                .containsOnly(Map.entry(EventType.VIEW, 1L), Map.entry(EventType.ADD_TO_CART, 1L));
+
+        clock.advance(Duration.ofHours(2));
+        assertThat(counters.summary(Duration.ofHours(1), null)).isEmpty();
+    }
+
+    @Test
+    void ignoresEventsOutsideTheCoveredRange() {
+        counters.add(event(EventType.VIEW, null, START.minusHours(2)));
+        counters.add(event(EventType.VIEW, null, START.plusMinutes(1)));
+
+        assertThat(counters.summary(Duration.ofHours(1), null)).isEmpty();
+    }
+
+    @Test
+    void addAllMergesStagedCountsThatAreStillInsideTheWindow() {
+        RollingEventCounters staged = new RollingEventCounters(clock);
+        staged.add(event(EventType.VIEW, "books", START.minusSeconds(30)));
+        staged.add(event(EventType.VIEW, "books", START.minusMinutes(3)));
+        staged.add(event(EventType.PURCHASE, null, START.minusMinutes(20)));
+        counters.add(event(EventType.VIEW, "books", START.minusSeconds(30)));
+
+        clock.advance(Duration.ofMinutes(1));
+        counters.addAll(staged);
+
+        assertThat(counters.summary(Duration.ofMinutes(5), "books")).containsOnly(Map.entry(EventType.VIEW, 3L));
+        assertThat(counters.summary(Duration.ofHours(1), null))
+                .containsOnly(Map.entry(EventType.VIEW, 3L), Map.entry(EventType.PURCHASE, 1L));
+    }
+
+    @Test
+    void rejectsWindowsLongerThanOneHour() {
+        assertThatThrownBy(() -> counters.summary(Duration.ofHours(2), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Event event(EventType type, String category, LocalDateTime timestamp) {
+        return new Event(null, 1L, type, null, category, timestamp);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.practical_test.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void behavesLikeAMap() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 3);
+
+        assertThat(cache.get("a")).isEqualTo(3);
+        assertThat(cache.containsKey("b")).isTrue();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.computeIfPresent("b", (key, value) -> value + 10)).isEqualTo(12);
+        assertThat(cache.computeIfPresent("missing", (key, value) -> 1)).isNull();
+
+        cache.remove("a");
+        assertThat(cache.get("a")).isNull();
+        cache.clear();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsBeyondMaxSizeAndNotifiesListener() {
+        List<Integer> evicted = new ArrayList<>();
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100, (key, value) -> evicted.add(key));
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertThat(cache.size()).isEqualTo(100);
+        assertThat(evicted).hasSize(900).doesNotHaveDuplicates();
+        evicted.forEach(key -> assertThat(cache.containsKey(key)).isFalse());
+    }
+
+    @Test
+    void evictsBeyondMaxWeightAndTracksUpdatedWeights() {
+        List<Integer> evicted = new ArrayList<>();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(1_000, 100, (key, value) -> value.length(),
+                (key, value) -> evicted.add(key));
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "x".repeat(10));
+        }
+
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(100);
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(evicted).hasSize(100 - cache.size());
+
+        // Growing an entry evicts entries until the weight fits again
+        int survivor = 0;
+        while (!cache.containsKey(survivor)) {
+            survivor++;
+        }
+        cache.put(survivor, "x".repeat(60));
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(100);
+
+        cache.clear();
+        assertThat(cache.weightedSize()).isZero();
+    }
+
+    @Test
+    void frequentlyReadEntriesSurviveAScanOfOneOffKeys() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get(i);
+            }
+        }
+
+        // One-off queries, each read only once
+        for (int i = 1_000; i < 11_000; i++) {
+            cache.put(i, i);
+        }
+
+        int hotSurvivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.containsKey(i)) {
+                hotSurvivors++;
+            }
+        }
+        assertThat(hotSurvivors).isGreaterThanOrEqualTo(45);
+    }
+
+    @Test
+    void staysBoundedUnderConcurrentReadsAndWrites() throws Exception {
+        int maxSize = 100;
+        ConcurrentHashMap<Integer, Boolean> evicted = new ConcurrentHashMap<>();
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(maxSize, (key, value) -> evicted.put(key, true));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50_000; i++) {
+                    int key = random.nextInt(1_000);
+                    switch (random.nextInt(10)) {
+                        case 0 -> cache.put(key, key);
+                        case 1 -> cache.remove(key);
+                        default -> {
+                            Integer value = cache.get(key);
+                            if (value != null) {
+                                assertThat(value).isEqualTo(key);
+                            }
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(maxSize);
+        cache.put(-1, -1);
+        assertThat(cache.get(-1)).isEqualTo(-1);
+    }
+}
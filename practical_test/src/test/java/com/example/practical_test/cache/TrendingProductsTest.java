@@ -0,0 +1,196 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.MutableClock;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingProductsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    private final MutableClock clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+    private final TrendingProducts trending = new TrendingProducts(clock, 200, 100,
+            Duration.ofMinutes(5), Duration.ofHours(1));
+
+    @Test
+    void topTenMatchesExactCountsWithManyMoreProductsThanCapacity() {
+        // Zipf-like popularity over 2000 products, 10 times the tracked capacity
+        int products = 2000;
+        double[] cumulative = new double[products];
+        double sum = 0;
+        for (int i = 0; i < products; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(42);
+        Map<Long, Long> exact = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            long productId = index >= 0 ? index : -index - 1;
+            exact.merge(productId, 1L, Long::sum);
+            trending.add(event(EventType.VIEW, "books", productId, START.minusSeconds(i % 3000)));
+        }
+
+        List<Map.Entry<Long, Long>> exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .collect(Collectors.toList());
+        // Rankings cover whole slices, and the latest events are in the slice being filled
+        clock.advance(Duration.ofMinutes(5));
+        List<SpaceSaving.Entry> top = trending.top(EventType.VIEW, "books", Duration.ofHours(1), 10);
+
+        assertThat(top).extracting(SpaceSaving.Entry::item)
+                .containsExactlyElementsOf(exactTop.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+        assertThat(top).extracting(SpaceSaving.Entry::count)
+                .containsExactlyElementsOf(exactTop.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+        assertThat(top).extracting(SpaceSaving.Entry::error).containsOnly(0L);
+        assertThat(trending.top(EventType.VIEW, null, Duration.ofHours(1), 10)).isEqualTo(top);
+    }
+
+    @Test
+    void productsLeaveTheWindowAsItSlides() {
+        trending.add(event(EventType.VIEW, "books", 1L, START.minusMinutes(4)));
+        trending.add(event(EventType.VIEW, "books", 1L, START.minusMinutes(4)));
+        trending.add(event(EventType.VIEW, "toys", 2L, START.minusMinutes(1)));
+        trending.add(event(EventType.PURCHASE, "toys", 3L, START));
+
+        assertThat(trending.top(EventType.VIEW, null, Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(1L, 2, 0), new SpaceSaving.Entry(2L, 1, 0));
+        assertThat(trending.top(EventType.VIEW, "toys", Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(2L, 1, 0));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(trending.top(EventType.VIEW, null, Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(2L, 1, 0));
+        assertThat(trending.top(EventType.VIEW, null, Duration.ofHours(1), 10))
+                .containsExactly(new SpaceSaving.Entry(1L, 2, 0), new SpaceSaving.Entry(2L, 1, 0));
+
+        clock.advance(Duration.ofHours(2));
+        assertThat(trending.top(EventType.VIEW, null, Duration.ofHours(1), 10)).isEmpty();
+        assertThat(trending.top(EventType.PURCHASE, "toys", Duration.ofHours(1), 10)).isEmpty();
+    }
+
+    @Test
+    void windowSlidesCorrectlyAfterASliceOverflowedTheCapacity() {
+        TrendingProducts small = new TrendingProducts(clock, 10, 100, Duration.ofHours(1));
+        Map<Long, Long> exact = new HashMap<>();
+        // One slice sees ten times more products than it tracks
+        for (int i = 0; i < 50; i++) {
+            add(small, exact, 1L, START.minusMinutes(50));
+        }
+        for (long productId = 100; productId < 200; productId++) {
+            add(small, exact, productId, START.minusMinutes(50));
+            add(small, exact, 1L, START.minusMinutes(50));
+        }
+        for (int i = 0; i < 30; i++) {
+            add(small, exact, 2L, START.minusMinutes(10));
+            add(small, exact, i < 20 ? 3L : 1L, START.minusMinutes(10));
+        }
+
+        List<SpaceSaving.Entry> top = small.top(EventType.VIEW, null, Duration.ofHours(1), 5);
+        assertThat(top).extracting(SpaceSaving.Entry::item).startsWith(1L, 2L, 3L);
+        assertThat(top).allSatisfy(entry -> assertThat(exact.getOrDefault(entry.item(), 0L))
+                .isBetween(entry.count() - entry.error(), entry.count()));
+
+        // The overflowed slice leaves the window with everything it counted
+        clock.advance(Duration.ofMinutes(15));
+        assertThat(small.top(EventType.VIEW, null, Duration.ofHours(1), 10)).containsExactly(
+                new SpaceSaving.Entry(2L, 30, 0), new SpaceSaving.Entry(3L, 20, 0), new SpaceSaving.Entry(1L, 10, 0));
+    }
+
+    private void add(TrendingProducts trending, Map<Long, Long> exact, long productId, LocalDateTime timestamp) {
+        exact.merge(productId, 1L, Long::sum);
+        trending.add(event(EventType.VIEW, "books", productId, timestamp));
+    }
+
+    @Test
+    void addAllMergesStagedCountsThatAreStillInsideTheWindow() {
+        TrendingProducts staged = new TrendingProducts(clock, 200, 100, Duration.ofMinutes(5), Duration.ofHours(1));
+        staged.add(event(EventType.VIEW, "books", 7L, START.minusMinutes(1)));
+        staged.add(event(EventType.VIEW, "books", 8L, START.minusMinutes(30)));
+        trending.add(event(EventType.VIEW, "books", 7L, START.minusSeconds(30)));
+
+        trending.addAll(staged);
+
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(7L, 2, 0));
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofHours(1), 10))
+                .containsExactly(new SpaceSaving.Entry(7L, 2, 0), new SpaceSaving.Entry(8L, 1, 0));
+    }
+
+    @Test
+    void rankingIsMergedOncePerSliceFromTheWholeSlices() {
+        trending.add(event(EventType.VIEW, "books", 1L, START.minusSeconds(10)));
+        trending.add(event(EventType.VIEW, "books", 2L, START.plusSeconds(10)));
+
+        clock.advance(Duration.ofSeconds(20));
+        List<SpaceSaving.Entry> top = trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 10);
+        assertThat(top).containsExactly(new SpaceSaving.Entry(1L, 1, 0));
+        // Reads in the same slice take the same ranking
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 10)).isSameAs(top);
+
+        // A late event in a whole slice is merged on the next read
+        trending.add(event(EventType.VIEW, "books", 3L, START.minusSeconds(10)));
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(1L, 1, 0), new SpaceSaving.Entry(3L, 1, 0));
+
+        clock.advance(Duration.ofSeconds(5));
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 1))
+                .containsExactly(new SpaceSaving.Entry(1L, 1, 0));
+        assertThat(trending.top(EventType.VIEW, "books", Duration.ofMinutes(5), 10)).containsExactly(
+                new SpaceSaving.Entry(1L, 1, 0), new SpaceSaving.Entry(2L, 1, 0), new SpaceSaving.Entry(3L, 1, 0));
+    }
+
+    @Test
+    void categoriesPastTheCapAreOnlyRankedUnderAllCategories() {
+        TrendingProducts capped = new TrendingProducts(clock, 200, 2, Duration.ofMinutes(5));
+        capped.add(event(EventType.VIEW, "books", 1L, START.minusMinutes(1)));
+        capped.add(event(EventType.VIEW, "toys", 2L, START.minusMinutes(1)));
+        capped.add(event(EventType.VIEW, "games", 3L, START.minusMinutes(1)));
+
+        assertThat(capped.size()).isEqualTo(3);
+        assertThat(capped.top(EventType.VIEW, "toys", Duration.ofMinutes(5), 10))
+                .containsExactly(new SpaceSaving.Entry(2L, 1, 0));
+        assertThat(capped.top(EventType.VIEW, "games", Duration.ofMinutes(5), 10)).isEmpty();
+        assertThat(capped.top(EventType.VIEW, null, Duration.ofMinutes(5), 10)).extracting(SpaceSaving.Entry::item)
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void trendsWithoutEventsInAnyWindowAreEvicted() {
+        TrendingProducts capped = new TrendingProducts(clock, 200, 1, Duration.ofMinutes(5), Duration.ofHours(1));
+        capped.add(event(EventType.VIEW, "books", 1L, START.minusMinutes(30)));
+        capped.add(event(EventType.VIEW, null, 2L, START.minusMinutes(1)));
+
+        assertThat(capped.evictIdle()).isZero();
+        clock.advance(Duration.ofMinutes(31));
+        assertThat(capped.evictIdle()).isEqualTo(1);
+        assertThat(capped.size()).isEqualTo(1);
+
+        // The category slot is free again
+        capped.add(event(EventType.VIEW, "toys", 3L, START.plusMinutes(29)));
+        assertThat(capped.top(EventType.VIEW, "toys", Duration.ofHours(1), 10))
+                .containsExactly(new SpaceSaving.Entry(3L, 1, 0));
+        clock.advance(Duration.ofHours(2));
+        assertThat(capped.evictIdle()).isEqualTo(2);
+        assertThat(capped.size()).isZero();
+    }
+
+    private Event event(EventType type, String category, Long productId, LocalDateTime timestamp) {
+        return new Event(null, 1L, type, productId, category, timestamp);
+    }
+}
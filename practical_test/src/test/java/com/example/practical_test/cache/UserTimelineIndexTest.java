@@ -0,0 +1,121 @@
+package com.example.practical_test.cache;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserTimelineIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final UserTimelineIndex index = new UserTimelineIndex(5, 100,
+            new EventDictionary());
+
+    @Test
+    void answersSearchesOfACompletelyLoadedUser() {
+        index.load(1L, null, () -> newestFirst(1L, 3));
+
+        assertThat(index.find(key(1L, null, null, 10), null, null))
+                .extracting(EventResponse::getId).containsExactly(3L, 2L, 1L);
+        assertThat(index.find(key(1L, EventType.PURCHASE, null, 10), null, null))
+                .extracting(EventResponse::getId).containsExactly(3L);
+        assertThat(index.find(key(1L, null, "toys", 10), null, null)).isEmpty();
+        assertThat(index.find(key(1L, null, null, 10), START.plusMinutes(1), 2L))
+                .extracting(EventResponse::getId).containsExactly(1L);
+        assertThat(index.find(key(2L, null, null, 10), null, null)).isNull();
+    }
+
+    @Test
+    void splicesWritesAndDropsTheOldestEventsBeyondCapacity() {
+        index.load(1L, null, () -> newestFirst(1L, 4));
+        index.apply(List.of(event(10L, 1L, EventType.VIEW, START.plusMinutes(10)),
+                event(11L, 1L, EventType.VIEW, START.minusMinutes(30)),
+                event(12L, 2L, EventType.VIEW, START)));
+
+        // Event 1 was dropped, so only searches that stop before it can be answered
+        assertThat(index.find(key(1L, null, null, 3), null, null))
+                .extracting(EventResponse::getId).containsExactly(10L, 4L, 3L);
+        assertThat(index.find(key(1L, null, null, 10), null, null)).isNull();
+        EventResponse newest = index.find(key(1L, null, null, 1), null, null).get(0);
+        assertThat(newest.getTimestamp()).isEqualTo(START.plusMinutes(10));
+        assertThat(newest.getCategory()).isEqualTo("books");
+        assertThat(newest.getProductId()).isEqualTo(100L);
+    }
+
+    @Test
+    void partialLoadOnlyAnswersPagesWithinTheLoadedEvents() {
+        // One row more than the capacity: the user has older events
+        index.load(1L, null, () -> newestFirst(1L, 6));
+
+        assertThat(index.find(key(1L, null, null, 5), null, null))
+                .extracting(EventResponse::getId).containsExactly(6L, 5L, 4L, 3L, 2L);
+        assertThat(index.find(key(1L, EventType.PURCHASE, null, 5), null, null)).isNull();
+    }
+
+    @Test
+    void writesDuringALoadAreMergedWithoutDuplicates() {
+        index.load(1L, null, () -> {
+            index.apply(List.of(event(2L, 1L, EventType.VIEW, START.plusMinutes(1)),
+                    event(7L, 1L, EventType.VIEW, START.plusMinutes(7))));
+            return newestFirst(1L, 2);
+        });
+
+        assertThat(index.find(key(1L, null, null, 10), null, null))
+                .extracting(EventResponse::getId).containsExactly(7L, 2L, 1L);
+    }
+
+    @Test
+    void filtersOnCategoriesStoredPastTheDictionaryCapacity() {
+        EventDictionary dictionary = new EventDictionary(1);
+        UserTimelineIndex small = new UserTimelineIndex(5, 100, dictionary);
+        // "books" takes the only code
+        small.load(1L, null, () -> newestFirst(1L, 2));
+        small.apply(List.of(new Event(3L, 1L, EventType.VIEW, 100L, "toys", START.plusMinutes(2)),
+                new Event(4L, 1L, EventType.VIEW, 100L, "garden", START.plusMinutes(3))));
+
+        assertThat(dictionary.findCategoryCode("toys")).isEqualTo(EventDictionary.UNCODED);
+        assertThat(small.find(key(1L, null, "toys", 10), null, null))
+                .extracting(EventResponse::getId).containsExactly(3L);
+        assertThat(small.find(key(1L, null, "books", 10), null, null))
+                .extracting(EventResponse::getId).containsExactly(2L, 1L);
+        assertThat(small.find(key(1L, null, null, 10), null, null))
+                .extracting(EventResponse::getCategory).containsExactly("garden", "toys", "books", "books");
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsIdleUsers() {
+        index.load(1L, null, () -> newestFirst(1L, 1));
+
+        assertThat(index.evictIdle(Long.MAX_VALUE)).isZero();
+        assertThat(index.evictIdle(-1)).isEqualTo(1);
+        assertThat(index.size()).isZero();
+    }
+
+    private static EventSearchKey key(Long userId, EventType eventType, String category, int maxRows) {
+        return new EventSearchKey(userId, eventType, category, null, null, null, maxRows);
+    }
+
+    /**
+     * Events 1..count of a user one minute apart, every third a PURCHASE, newest first
+     */
+    private static List<EventResponse> newestFirst(long userId, int count) {
+        List<EventResponse> rows = new ArrayList<>();
+        for (long id = count; id >= 1; id--) {
+            rows.add(new EventResponse(id, userId, id % 3 == 0 ? EventType.PURCHASE : EventType.VIEW, 100L, "books",
+                    START.plusMinutes(id - 1)));
+        }
+        return rows;
+    }
+
+    private static Event event(Long id, Long userId, EventType type, LocalDateTime timestamp) {
+        return new Event(id, userId, type, 100L, "books", timestamp);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.practical_test.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventTypeTest {
+
+    @Test
+    void parseIgnoresCaseAndSurroundingWhitespace() {
+        assertThat(EventType.parse("VIEW")).isEqualTo(EventType.VIEW);
+        assertThat(EventType.parse("add_to_cart")).isEqualTo(EventType.ADD_TO_CART);
+        assertThat(EventType.parse(" \tPurchase\n")).isEqualTo(EventType.PURCHASE);
+        assertThat(EventType.parse(new StringBuilder("vIeW"))).isEqualTo(EventType.VIEW);
+    }
+
+    @Test
+    void parseReturnsNullForAnythingElse() {
+        assertThat(EventType.parse(null)).isNull();
+        assertThat(EventType.parse("")).isNull();
+        assertThat(EventType.parse("   ")).isNull();
+        assertThat(EventType.parse("VIEWS")).isNull();
+        assertThat(EventType.parse("VI EW")).isNull();
+        assertThat(EventType.parse("ADD-TO-CART")).isNull();
+        // Only ASCII letters are folded
+        assertThat(EventType.parse("vıew")).isNull();
+    }
+
+    @Test
+    void parseFilterTreatsBlankAsNoFilterAndRejectsUnknownTypes() {
+        assertThat(EventType.parseFilter(null)).isNull();
+        assertThat(EventType.parseFilter(" ")).isNull();
+        assertThat(EventType.parseFilter("purchase")).isEqualTo(EventType.PURCHASE);
+        assertThatThrownBy(() -> EventType.parseFilter("CLICK"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(EventType.INVALID_MESSAGE);
+    }
+
+    @Test
+    void ordinalsAreStable() {
+        // Persisted as SMALLINT (V6) and encoded by SearchResultCodec
+        assertThat(EventType.values()).containsExactly(EventType.VIEW, EventType.ADD_TO_CART, EventType.PURCHASE);
+        for (EventType type : EventType.values()) {
+            assertThat(EventType.of(type.ordinal())).isSameAs(type);
+        }
+        assertThat(EventType.count()).isEqualTo(3);
+    }
+}
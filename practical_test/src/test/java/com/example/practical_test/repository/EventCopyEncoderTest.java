@@ -0,0 +1,67 @@
+package com.example.practical_test.repository;
+
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventCopyEncoderTest {
+
+    @Test
+    void writesTheBinaryCopySignatureAndTrailer() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        EventCopyEncoder.writeHeader(out);
+        EventCopyEncoder.writeTrailer(out);
+
+        assertThat(bytes.toByteArray()).containsExactly(
+                'P', 'G', 'C', 'O', 'P', 'Y', '\n', 0xFF, '\r', '\n', 0,
+                0, 0, 0, 0,
+                0, 0, 0, 0,
+                0xFF, 0xFF);
+    }
+
+    @Test
+    void writesSixLengthPrefixedFieldsWithNullsAsMinusOne() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Event event = new Event(51L, 7L, EventType.PURCHASE, null, "books", LocalDateTime.of(2000, 1, 1, 0, 0, 1, 500_000));
+
+        EventCopyEncoder.writeRow(new DataOutputStream(bytes), event);
+
+        ByteBuffer row = ByteBuffer.wrap(bytes.toByteArray());
+        assertThat(row.getShort()).isEqualTo((short) 6);
+        assertThat(row.getInt()).isEqualTo(8);
+        assertThat(row.getLong()).isEqualTo(51L);
+        assertThat(row.getInt()).isEqualTo(8);
+        assertThat(row.getLong()).isEqualTo(7L);
+        assertThat(row.getInt()).isEqualTo(2);
+        assertThat(row.getShort()).isEqualTo((short) 2);
+        assertThat(row.getInt()).isEqualTo(-1);
+        assertThat(text(row)).isEqualTo("books");
+        assertThat(row.getInt()).isEqualTo(8);
+        assertThat(row.getLong()).isEqualTo(1_000_500L);
+        assertThat(row.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void timestampsCountMicrosecondsFromThePostgresEpoch() {
+        assertThat(EventCopyEncoder.toPostgresMicros(LocalDateTime.of(2000, 1, 1, 0, 0))).isZero();
+        assertThat(EventCopyEncoder.toPostgresMicros(LocalDateTime.of(1999, 12, 31, 23, 59, 59))).isEqualTo(-1_000_000L);
+        assertThat(EventCopyEncoder.toPostgresMicros(LocalDateTime.of(2024, 1, 15, 10, 0, 0, 123_456_789)))
+                .isEqualTo(758_628_000_123_456L);
+    }
+
+    private static String text(ByteBuffer row) {
+        byte[] value = new byte[row.getInt()];
+        row.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.practical_test.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression test for the event search shapes against PostgreSQL
+ * with the Flyway schema. Every page query must be answered by partition
+ * indexes in (timestamp desc, id desc) order, without a sequential scan or a
+ * sort, and time-bounded queries must only touch their partitions.
+ * Skipped when Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class EventQueryPlanTest {
+    private static final String PAGE_QUERY = "SELECT id, user_id, event_type, product_id, category, timestamp "
+            + "FROM events WHERE %s ORDER BY timestamp DESC, id DESC LIMIT 101";
+    // Test data covers the first days of the current month, which has a partition
+    private static final YearMonth MONTH = YearMonth.now();
+    private static final String DAY_2 = "TIMESTAMP '" + MONTH.atDay(2).atStartOfDay() + "'";
+    private static final String DAY_3 = "TIMESTAMP '" + MONTH.atDay(3).atStartOfDay() + "'";
+    private static final String PARTITION = "events_" + MONTH.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadEvents() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM events", Integer.class);
+        if (rows != null && rows > 0) {
+            return;
+        }
+        jdbcTemplate.execute("INSERT INTO events (id, user_id, event_type, product_id, category, timestamp) "
+                + "SELECT nextval('events_seq'), g % 5000, (ARRAY['VIEW', 'ADD_TO_CART', 'PURCHASE'])[g % 3 + 1], "
+                + "g % 20000, 'category-' || (g % 50), date_trunc('month', now()) + g * INTERVAL '1 second' "
+                + "FROM generate_series(1, 300000) g");
+        jdbcTemplate.execute("ANALYZE events");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "user_id = 42                                                    | user_id_timestamp_id",
+        "user_id = 42 AND event_type = 'VIEW'                            | user_id_timestamp_id",
+        "category = 'category-3' AND event_type = 'VIEW'                 | category_event_type_timestamp_id",
+        "category = 'category-3'                                         | category_event_type_timestamp_id",
+        "product_id = 7                                                  | product_id_timestamp_id",
+        "user_id = 42 AND timestamp >= DAY_2                             | user_id_timestamp_id",
+        "TRUE                                                            | timestamp_id",
+        "(timestamp, id) < (DAY_3, 150000)                               | timestamp_id",
+    })
+    void pageQueriesUseAnIndexInResultOrder(String filter, String indexColumns) {
+        String plan = explain(String.format(PAGE_QUERY, withDays(filter)));
+
+        // Partition indexes are named after the partition and the index columns
+        assertThat(plan).containsPattern("\"Index Name\": \"events_\\d{4}_\\d{2}_" + indexColumns + "_idx\"");
+        assertThat(plan).doesNotContain("\"Node Type\": \"Seq Scan\"");
+        assertThat(plan).doesNotContain("\"Node Type\": \"Sort\"");
+    }
+
+    @Test
+    void timeBoundedQueriesOnlyScanTheirPartition() {
+        String plan = explain(String.format(PAGE_QUERY,
+                withDays("user_id = 42 AND timestamp >= DAY_2 AND timestamp < DAY_3")));
+
+        assertThat(plan).contains("\"Relation Name\": \"" + PARTITION + "\"");
+        assertThat(plan).doesNotContain("events_default");
+        assertThat(plan).doesNotContainPattern("\"Relation Name\": \"events_(?!" + MONTH.format(
+                DateTimeFormatter.ofPattern("yyyy_MM")) + ")");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "event_type = 'PURCHASE'",
+        "event_type = 'VIEW' AND timestamp <= DAY_2",
+    })
+    void lowSelectivityFiltersStillAvoidScansAndSorts(String filter) {
+        String plan = explain(String.format(PAGE_QUERY, withDays(filter)));
+
+        assertThat(plan).doesNotContain("\"Node Type\": \"Seq Scan\"");
+        assertThat(plan).doesNotContain("\"Node Type\": \"Sort\"");
+    }
+
+    @Test
+    void timestampRangeExportAvoidsASequentialScan() {
+        String plan = explain("SELECT count(*) FROM events WHERE timestamp BETWEEN " + DAY_2
+                + " AND " + DAY_2 + " + INTERVAL '6 hours'");
+
+        assertThat(plan).doesNotContain("\"Node Type\": \"Seq Scan\"");
+    }
+
+    private static String withDays(String filter) {
+        return filter.replace("DAY_2", DAY_2).replace("DAY_3", DAY_3);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+    }
+}
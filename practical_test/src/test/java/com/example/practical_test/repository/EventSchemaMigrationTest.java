@@ -0,0 +1,50 @@
+package com.example.practical_test.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flyway adopting a database created by the former ddl-auto=update, with
+ * IDENTITY event ids already in use. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EventSchemaMigrationTest {
+
+    @Container
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @Test
+    void adoptedDatabaseKeepsItsEventsAndAllocatesIdsAfterThem() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // Legacy schema and rows, as ddl-auto=update created them for the IDENTITY entity
+        jdbcTemplate.execute("CREATE TABLE events (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "user_id BIGINT NOT NULL, event_type VARCHAR(255) NOT NULL, product_id BIGINT, "
+                + "category VARCHAR(255), timestamp TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO events (user_id, event_type, product_id, category, timestamp) "
+                + "SELECT g % 10, (ARRAY['VIEW', 'ADD_TO_CART', 'PURCHASE'])[g % 3 + 1], g, 'books', "
+                + "TIMESTAMP '2024-01-01' + g * INTERVAL '1 minute' FROM generate_series(1, 1234) g");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM events", Long.class)).isEqualTo(1234);
+        // The pooled-lo generator takes the next block from the sequence
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('events_seq')", Long.class);
+        assertThat(next).isGreaterThan(1234);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM events WHERE id >= ?", Long.class, next))
+                .isZero();
+    }
+}
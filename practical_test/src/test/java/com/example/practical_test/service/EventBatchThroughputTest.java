@@ -0,0 +1,82 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the per-event ingestion path with the batched one.
+ * Run with: mvn test -Dtest=EventBatchThroughputTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EventBatchThroughputTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void batchPathOutperformsPerEventPath(int count) {
+        List<EventRequest> requests = generateRequests(count);
+
+        long start = System.nanoTime();
+        for (EventRequest request : requests) {
+            eventService.createEvent(request);
+        }
+        long perEventNanos = System.nanoTime() - start;
+        eventRepository.deleteAllInBatch();
+
+        start = System.nanoTime();
+        List<EventResponse> responses = eventService.createEventsBatch(requests);
+        long batchNanos = System.nanoTime() - start;
+
+        System.out.printf("%,d events: per-event %,d ms (%,.0f events/s), batch %,d ms (%,.0f events/s)%n",
+                count,
+                perEventNanos / 1_000_000, count * 1e9 / perEventNanos,
+                batchNanos / 1_000_000, count * 1e9 / batchNanos);
+
+        assertThat(responses).hasSize(count);
+        assertThat(responses).allSatisfy(response -> assertThat(response.getId()).isNotNull());
+        assertThat(eventRepository.count()).isEqualTo(count);
+        assertThat(batchNanos).isLessThan(perEventNanos);
+    }
+
+    private List<EventRequest> generateRequests(int count) {
+        String[] types = {"VIEW", "ADD_TO_CART", "PURCHASE"};
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<EventRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId((long) (i % 1_000));
+            request.setEventType(types[i % types.length]);
+            request.setProductId((long) (i % 5_000));
+            request.setCategory("category-" + (i % 20));
+            request.setTimestamp(base.plusSeconds(i));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.controller.EventController;
+import com.example.practical_test.dto.BulkLoadResponse;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.exception.GlobalExceptionHandler;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"events.bulk.chunk-size=100", "events.bulk.max-spliced-events=300"})
+@ActiveProfiles("h2")
+class EventBulkLoadTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private EventController eventController;
+
+    @BeforeEach
+    void setUp() {
+        eventService.clearCache();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void loadsNdjsonInChunksAndSplicesTheEventsIntoCachedSearches() {
+        // Cached before the load (the user's search is held by the user's timeline, not the cache)
+        assertThat(eventService.getEvents(null, "PURCHASE", null, null, null, null, null, 1000).getEvents()).isEmpty();
+        assertThat(eventService.getEvents(3L, null, null, null, null, null, null, 1000).getEvents()).isEmpty();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            body.append(String.format("{\"userId\":%d,\"eventType\":\"%s\",\"productId\":%d,\"timestamp\":\"%s\"}%n",
+                    i % 10, i % 2 == 0 ? "view" : "PURCHASE", i, now.minusSeconds(250 - i)));
+        }
+
+        BulkLoadResponse response = eventService.bulkLoad(EventBulkReader.ndjson(jsonMapper, stream(body.toString())));
+
+        assertThat(response.getLoadedCount()).isEqualTo(250);
+        assertThat(eventRepository.count()).isEqualTo(250);
+        assertThat(eventService.getCacheSize()).isEqualTo(1);
+        assertThat(eventService.getEvents(null, "PURCHASE", null, null, null, null, null, 1000).getEvents()).hasSize(125);
+        List<EventResponse> userEvents = eventService.getEvents(3L, null, null, null, null, null, null, 1000).getEvents();
+        assertThat(userEvents).hasSize(25).extracting(EventResponse::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(eventService.getRecentEvents()).last().satisfies(event -> assertThat(event.getProductId()).isEqualTo(249L));
+        assertThat(eventService.getEventSummary(null, "1h"))
+                .containsOnly(Map.entry(EventType.VIEW, 125L), Map.entry(EventType.PURCHASE, 125L));
+    }
+
+    @Test
+    void loadsCsvWithHeaderQuotesAndEmptyFields() {
+        String body = "userId,eventType,productId,category,timestamp\n"
+                + "1,VIEW,10,\"books, used\",2024-01-15T10:00:00\n"
+                + "\n"
+                + "2,ADD_TO_CART,,,2024-01-15T10:00:01\n";
+
+        BulkLoadResponse response = eventService.bulkLoad(EventBulkReader.csv(stream(body)));
+
+        assertThat(response.getLoadedCount()).isEqualTo(2);
+        List<EventResponse> events = eventService.getEvents(null, null, null, null, null, null, null, null).getEvents();
+        assertThat(events).extracting(EventResponse::getCategory).containsExactly(null, "books, used");
+        assertThat(events).extracting(EventResponse::getProductId).containsExactly(null, 10L);
+    }
+
+    @Test
+    void anInvalidEventRollsBackTheWholeLoad() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            body.append(i).append(",VIEW,1,books,2024-01-15T10:00:00\n");
+        }
+        body.append("150,CLICK,1,books,2024-01-15T10:00:00\n");
+
+        assertThatThrownBy(() -> eventService.bulkLoad(EventBulkReader.csv(stream(body.toString()))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Event 151: Invalid event type");
+        assertThat(eventRepository.count()).isZero();
+    }
+
+    @Test
+    void loadsTooLargeToSpliceClearTheCache() {
+        eventService.getEvents(null, "VIEW", null, null, null, null, null, null);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 301; i++) {
+            body.append(i).append(",VIEW,1,books,2024-01-15T10:00:00\n");
+        }
+
+        eventService.bulkLoad(EventBulkReader.csv(stream(body.toString())));
+
+        assertThat(eventService.getCacheSize()).isZero();
+        assertThat(eventService.getEvents(null, "VIEW", null, null, null, null, null, 1000).getEvents()).hasSize(301);
+    }
+
+    @Test
+    void batchesTooLargeToSpliceClearTheCacheToo() {
+        eventService.getEvents(null, "VIEW", null, null, null, null, null, null);
+        List<EventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 301; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId((long) i);
+            request.setEventType("VIEW");
+            request.setTimestamp(LocalDateTime.of(2024, 1, 15, 10, 0));
+            requests.add(request);
+        }
+
+        eventService.createEventsBatch(requests);
+
+        assertThat(eventService.getCacheSize()).isZero();
+        assertThat(eventService.getEvents(null, "VIEW", null, null, null, null, null, 1000).getEvents()).hasSize(301);
+    }
+
+    @Test
+    void endpointAnswers400ForBadBodiesAnd500ForDatabaseFailures() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(eventController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        mockMvc.perform(post("/events/bulk").contentType("application/x-ndjson")
+                        .content("{\"userId\":1,\"eventType\":\"VIEW\"}\n{\"userId\":2,"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(startsWith("Event 2: ")));
+        assertThat(eventRepository.count()).isZero();
+
+        EventService failing = new EventService() {
+            @Override
+            public BulkLoadResponse bulkLoad(Iterator<EventRequest> requests) {
+                throw new DataAccessResourceFailureException("Connection refused");
+            }
+        };
+        EventController controller = new EventController();
+        ReflectionTestUtils.setField(controller, "eventService", failing);
+        ReflectionTestUtils.setField(controller, "jsonMapper", jsonMapper);
+        MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build()
+                .perform(post("/events/bulk").contentType("text/csv").content("1,VIEW,1,books,2024-01-15T10:00:00\n"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.DistinctUserCount;
+import com.example.practical_test.dto.DistinctUsersResponse;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Distinct users from the in-memory sketches maintained on ingestion (H2, no sketch store)
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class EventDistinctUsersTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void estimatesDistinctUsersPerDayAndOverTheRange() {
+        // Categories unique to this test, as the sketches outlive the deleted rows
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate today = LocalDate.now();
+        List<EventRequest> requests = new ArrayList<>();
+        for (long user = 0; user < 300; user++) {
+            requests.add(request(user, "VIEW", "hll-books", yesterday));
+            requests.add(request(user, "VIEW", "hll-books", yesterday));
+        }
+        for (long user = 200; user < 600; user++) {
+            requests.add(request(user, user % 2 == 0 ? "VIEW" : "PURCHASE", "hll-books", today));
+        }
+        eventService.createEventsBatch(requests);
+
+        DistinctUsersResponse range = eventService.getDistinctUsers(null, "hll-books", yesterday, today);
+        assertThat(range.getDays()).extracting(DistinctUserCount::getDay).containsExactly(yesterday, today);
+        assertContains(range.getDays().get(0), 300);
+        assertContains(range.getDays().get(1), 400);
+        assertContains(range.getTotal(), 600);
+        assertThat(range.getRelativeStandardError()).isBetween(0.016, 0.017);
+
+        assertContains(eventService.getDistinctUsers("purchase", "hll-books", today, null).getTotal(), 200);
+        assertThat(eventService.getDistinctUsers(null, "hll-toys", yesterday, today).getTotal().getEstimate()).isZero();
+        assertThatThrownBy(() -> eventService.getDistinctUsers(null, null, today, yesterday))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> eventService.getDistinctUsers("CLICK", null, today, today))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertContains(DistinctUserCount count, long actual) {
+        assertThat(count.getLowerBound()).isLessThanOrEqualTo(actual);
+        assertThat(count.getUpperBound()).isGreaterThanOrEqualTo(actual);
+    }
+
+    private static EventRequest request(long userId, String eventType, String category, LocalDate day) {
+        EventRequest request = new EventRequest();
+        request.setUserId(userId);
+        request.setEventType(eventType);
+        request.setCategory(category);
+        request.setProductId(1L);
+        request.setTimestamp(day.atTime(12, 0));
+        return request;
+    }
+}
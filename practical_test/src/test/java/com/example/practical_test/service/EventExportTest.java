@@ -0,0 +1,110 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.controller.EventController;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.exception.GlobalExceptionHandler;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"events.export.fetch-size=100", "events.export.timeout-ms=120000"})
+@ActiveProfiles("h2")
+class EventExportTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 0, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private EventController eventController;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamsEveryMatchingEventAsOneJsonObjectPerLine() throws Exception {
+        List<EventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1_050; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId((long) (i % 7));
+            request.setEventType(i % 3 == 0 ? "PURCHASE" : "VIEW");
+            request.setProductId((long) i);
+            request.setCategory("books");
+            request.setTimestamp(BASE.plusMinutes(i % 600));
+            requests.add(request);
+        }
+        eventService.createEventsBatch(requests);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = eventService.exportEvents(null, EventType.VIEW, null, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(700);
+        assertThat(lines).hasSize(700);
+        List<EventResponse> exported = new ArrayList<>();
+        for (String line : lines) {
+            exported.add(jsonMapper.readValue(line, EventResponse.class));
+        }
+        assertThat(exported).allSatisfy(event -> assertThat(event.getEventType()).isEqualTo(EventType.VIEW));
+        assertThat(exported).isSortedAccordingTo(Comparator.comparing(EventResponse::getTimestamp)
+                .thenComparing(EventResponse::getId).reversed());
+        assertThat(exported).extracting(EventResponse::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void endpointStreamsWithTheExportTimeout() throws Exception {
+        EventRequest event = new EventRequest();
+        event.setUserId(1L);
+        event.setEventType("VIEW");
+        event.setProductId(1L);
+        event.setCategory("books");
+        event.setTimestamp(BASE);
+        eventService.createEventsBatch(List.of(event));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(eventController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        MvcResult started = mockMvc.perform(get("/events/export").param("eventType", "view"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(120_000);
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+        assertThat(started.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")).hasSize(1);
+        mockMvc.perform(get("/events/export").param("eventType", "CLICK"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.FunnelResponse;
+import com.example.practical_test.dto.FunnelStepsResponse;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+@SpringBootTest(properties = "events.export.fetch-size=50")
+@ActiveProfiles("h2")
+class EventFunnelTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 0, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamsEventsInUserAndTimeOrderIntoTheFunnel() {
+        // Users' events interleave in time and are inserted newest first
+        List<EventRequest> requests = new ArrayList<>();
+        for (int user = 0; user < 200; user++) {
+            int steps = user % 4; // 0: nothing, 1: view, 2: view + cart, 3: all three
+            String[] types = {"VIEW", "ADD_TO_CART", "PURCHASE"};
+            for (int step = steps - 1; step >= 0; step--) {
+                requests.add(request(user, types[step], user % 2 == 0 ? "books" : "toys",
+                        BASE.plusSeconds(user).plusMinutes(step * 10L)));
+            }
+        }
+        requests.add(request(1, "VIEW", "books", BASE.minusDays(1))); // before the range
+        eventService.createEventsBatch(requests);
+
+        FunnelResponse funnel = eventService.getFunnel("category", null, null, BASE, BASE.plusDays(1), null);
+
+        assertThat(funnel.getEventCount()).isEqualTo(300);
+        assertThat(funnel.getGroups()).extracting(FunnelStepsResponse::getKey).containsExactly("toys", "books");
+        FunnelStepsResponse overall = funnel.getOverall();
+        assertThat(overall.getViewed()).isEqualTo(150);
+        assertThat(overall.getAddedToCart()).isEqualTo(100);
+        assertThat(overall.getPurchased()).isEqualTo(50);
+        assertThat(overall.getMedianViewToCartSeconds()).isCloseTo(600.0, withinPercentage(2));
+        assertThat(overall.getMedianCartToPurchaseSeconds()).isCloseTo(600.0, withinPercentage(2));
+    }
+
+    private static EventRequest request(long userId, String type, String category, LocalDateTime timestamp) {
+        EventRequest request = new EventRequest();
+        request.setUserId(userId);
+        request.setEventType(type);
+        request.setProductId(1L);
+        request.setCategory(category);
+        request.setTimestamp(timestamp);
+        return request;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.controller.EventController;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.IngestionStatsResponse;
+import com.example.practical_test.exceptions.IngestionBufferFullException;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventIngestionBufferTest {
+    private final StubEventService eventService = new StubEventService();
+    private EventIngestionBuffer buffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventService.release.countDown();
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void fullBufferRejectsEventsAndTheEndpointAnswers429() throws InterruptedException {
+        eventService.blocked = true;
+        buffer = start(2, 1, 1_000, 1);
+        buffer.submit(event(1));
+        // The writer holds the first event in a blocked flush, the buffer then takes two more
+        awaitTrue(() -> eventService.calls.get() == 1);
+        buffer.submit(event(2));
+        buffer.submit(event(3));
+
+        assertThatThrownBy(() -> buffer.submit(event(4))).isInstanceOf(IngestionBufferFullException.class);
+
+        ResponseEntity<?> response = controller(buffer).createEventAsync(request(5));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(buffer.getStats().getRejectedCount()).isEqualTo(2);
+        assertThat(buffer.getStats().getAcceptedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void fullBatchIsFlushedWithoutWaitingForTheInterval() throws InterruptedException {
+        buffer = start(100, 3, 2_000, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            buffer.submit(event(i));
+        }
+
+        awaitTrue(() -> eventService.written().size() == 3);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(eventService.batches).hasSize(1);
+    }
+
+    @Test
+    void partialBatchIsFlushedAfterTheInterval() throws InterruptedException {
+        buffer = start(100, 100, 50, 1);
+        buffer.submit(event(1));
+        buffer.submit(event(2));
+
+        awaitTrue(() -> eventService.written().size() == 2);
+        assertThat(eventService.batches).singleElement().satisfies(batch -> assertThat(batch).hasSize(2));
+    }
+
+    @Test
+    void stopWritesEverythingStillBuffered() throws InterruptedException {
+        eventService.blocked = true;
+        buffer = start(1000, 10, 1_000, 2);
+        for (int i = 0; i < 95; i++) {
+            buffer.submit(event(i));
+        }
+
+        eventService.release.countDown();
+        buffer.stop();
+
+        assertThat(eventService.written()).extracting(Event::getProductId).doesNotHaveDuplicates().hasSize(95);
+        assertThat(buffer.getStats().getBufferDepth()).isZero();
+        assertThatThrownBy(() -> buffer.submit(event(96))).isInstanceOf(IngestionBufferFullException.class);
+    }
+
+    @Test
+    void stopWritesLeftoversWhenWritersOutliveTheShutdownTimeout() throws InterruptedException {
+        // The writer's first flush ignores the interrupt and outlasts the timeout
+        eventService.spinMillis = 300;
+        buffer = start(1000, 5, 1_000, 1);
+        ReflectionTestUtils.setField(buffer, "shutdownTimeoutMs", 20L);
+        for (int i = 0; i < 50; i++) {
+            buffer.submit(event(i));
+        }
+        awaitTrue(() -> eventService.calls.get() == 1);
+
+        buffer.stop();
+        awaitTrue(() -> eventService.written().size() == 50);
+
+        assertThat(eventService.written()).extracting(Event::getProductId).doesNotHaveDuplicates();
+        assertThat(buffer.getStats().getFailedCount()).isZero();
+    }
+
+    @Test
+    void failedFlushIsRetried() throws InterruptedException {
+        eventService.failures.set(2);
+        buffer = start(100, 10, 10, 1);
+        buffer.submit(event(1));
+
+        awaitTrue(() -> eventService.written().size() == 1);
+        IngestionStatsResponse stats = buffer.getStats();
+        assertThat(stats.getRetryCount()).isEqualTo(2);
+        assertThat(stats.getFailedCount()).isZero();
+        assertThat(stats.getFlushedCount()).isEqualTo(1);
+        assertThat(stats.getFlushCount()).isEqualTo(3);
+    }
+
+    @Test
+    void batchFailingEveryAttemptIsDroppedAndCounted() throws InterruptedException {
+        eventService.failures.set(Integer.MAX_VALUE);
+        buffer = start(100, 10, 10, 1);
+        buffer.submit(event(1));
+
+        awaitTrue(() -> buffer.getStats().getFailedCount() == 1);
+        assertThat(eventService.calls.get()).isEqualTo(3);
+        assertThat(buffer.getStats().getRetryCount()).isEqualTo(2);
+        assertThat(eventService.written()).isEmpty();
+    }
+
+    @Test
+    void statsEndpointReportsTheBuffer() throws InterruptedException {
+        buffer = start(100, 2, 1_000, 1);
+        EventController controller = controller(buffer);
+        assertThat(controller.createEventAsync(request(1)).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(controller.createEventAsync(request(2)).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        awaitTrue(() -> eventService.written().size() == 2);
+
+        ResponseEntity<?> response = controller.getIngestionStats();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isInstanceOfSatisfying(IngestionStatsResponse.class, stats -> {
+            assertThat(stats.getBufferDepth()).isZero();
+            assertThat(stats.getBufferCapacity()).isEqualTo(100);
+            assertThat(stats.getAcceptedCount()).isEqualTo(2);
+            assertThat(stats.getFlushedCount()).isEqualTo(2);
+            assertThat(stats.getFlushCount()).isEqualTo(1);
+            assertThat(stats.getMaxFlushMillis()).isGreaterThanOrEqualTo(stats.getAverageFlushMillis());
+        });
+        assertThat(controller(null).getIngestionStats().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private EventIngestionBuffer start(int capacity, int batchSize, long flushIntervalMs, int writerThreads) {
+        EventIngestionBuffer buffer = new EventIngestionBuffer();
+        ReflectionTestUtils.setField(buffer, "eventService", eventService);
+        ReflectionTestUtils.setField(buffer, "capacity", capacity);
+        ReflectionTestUtils.setField(buffer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", flushIntervalMs);
+        ReflectionTestUtils.setField(buffer, "writerThreads", writerThreads);
+        ReflectionTestUtils.setField(buffer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(buffer, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(buffer, "shutdownTimeoutMs", 5_000L);
+        buffer.start();
+        return buffer;
+    }
+
+    private EventController controller(EventIngestionBuffer buffer) {
+        EventController controller = new EventController();
+        ReflectionTestUtils.setField(controller, "eventService", eventService);
+        ReflectionTestUtils.setField(controller, "ingestionBuffer", buffer);
+        return controller;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Event event(long productId) {
+        return new Event(null, 1L, EventType.VIEW, productId, "books", LocalDateTime.now());
+    }
+
+    private static EventRequest request(long productId) {
+        EventRequest request = new EventRequest();
+        request.setUserId(1L);
+        request.setEventType("VIEW");
+        request.setProductId(productId);
+        request.setCategory("books");
+        return request;
+    }
+
+    /**
+     * Records written batches instead of persisting them, and can block, stall or fail writes
+     */
+    private static class StubEventService extends EventService {
+        private final List<List<Event>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocked;
+        private volatile long spinMillis;
+
+        private StubEventService() {
+            ReflectionTestUtils.setField(this, "clock", Clock.systemUTC());
+        }
+
+        @Override
+        public List<EventResponse> persistEvents(List<Event> events) {
+            int call = calls.incrementAndGet();
+            if (blocked) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (call == 1 && spinMillis > 0) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spinMillis);
+                while (System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+            }
+            if (failures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(List.copyOf(events));
+            return List.of();
+        }
+
+        private List<Event> written() {
+            List<Event> written = new ArrayList<>();
+            batches.forEach(written::addAll);
+            return written;
+        }
+    }
+}
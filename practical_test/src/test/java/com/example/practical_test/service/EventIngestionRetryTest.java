@@ -0,0 +1,78 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retried async flushes against the real EventService and database
+ */
+@SpringBootTest(properties = {
+        "events.ingestion.async.enabled=true",
+        "events.ingestion.async.batch-size=1",
+        "events.ingestion.async.flush-interval-ms=10",
+        "events.ingestion.async.writer-threads=1",
+        "events.ingestion.async.max-attempts=3",
+        "events.ingestion.async.retry-backoff-ms=500"})
+@ActiveProfiles("h2")
+class EventIngestionRetryTest {
+
+    @Autowired
+    private EventIngestionBuffer buffer;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("ALTER TABLE events DROP CONSTRAINT IF EXISTS reject_user_42");
+        eventRepository.deleteAllInBatch();
+        eventService.clearCache();
+    }
+
+    @Test
+    void flushFailingAfterIdsWereGeneratedSucceedsOnRetry() throws InterruptedException {
+        // The insert fails at flush time, after the first attempt gave the event an id
+        jdbcTemplate.execute("ALTER TABLE events ADD CONSTRAINT reject_user_42 CHECK (user_id <> 42)");
+        long flushes = buffer.getStats().getFlushCount();
+        buffer.submit(new Event(null, 42L, EventType.PURCHASE, 7L, "books", LocalDateTime.of(2024, 1, 15, 10, 0)));
+
+        awaitTrue(() -> buffer.getStats().getFlushCount() > flushes);
+        jdbcTemplate.execute("ALTER TABLE events DROP CONSTRAINT reject_user_42");
+        awaitTrue(() -> eventRepository.count() == 1);
+
+        assertThat(buffer.getStats().getRetryCount()).isPositive();
+        assertThat(buffer.getStats().getFailedCount()).isZero();
+        assertThat(eventService.getEvents(42L, null, null, null, null, null, null, 10).getEvents())
+                .singleElement()
+                .satisfies(event -> assertThat(event.getId()).isNotNull())
+                .extracting(EventResponse::getProductId).isEqualTo(7L);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.repository.EventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation and latency of reading 10k events as managed entities copied into
+ * EventResponse (the previous read path) versus the EventResponse projection.
+ * Run with: mvn test -Dtest=EventReadProjectionBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EventReadProjectionBenchmarkTest {
+    private static final int ROWS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        String[] types = {"VIEW", "ADD_TO_CART", "PURCHASE"};
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<EventRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId((long) (i % 1_000));
+            request.setEventType(types[i % types.length]);
+            request.setProductId((long) (i % 5_000));
+            request.setCategory("category-" + (i % 20));
+            request.setTimestamp(base.plusSeconds(i));
+            requests.add(request);
+        }
+        eventService.createEventsBatch(requests);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void projectionAllocatesLessThanEntityHydration() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Supplier<List<EventResponse>> entityRead = () -> transaction.execute(status -> entityManager
+                .createQuery("select e from Event e order by e.timestamp desc, e.id desc", Event.class)
+                .getResultList().stream()
+                .map(eventService::toEventResponse)
+                .collect(Collectors.toList()));
+        Supplier<List<EventResponse>> projectionRead = () -> eventRepository
+                .findEventsWithFilters(null, null, null, null, null, null);
+
+        Measurement entities = measure(entityRead);
+        Measurement projection = measure(projectionRead);
+
+        System.out.printf("%,d rows: entities %.2f ms, %,d KB allocated; projection %.2f ms, %,d KB allocated%n",
+                ROWS, entities.millis, entities.allocatedBytes / 1024,
+                projection.millis, projection.allocatedBytes / 1024);
+        assertThat(projection.allocatedBytes).isLessThan(entities.allocatedBytes);
+    }
+
+    private Measurement measure(Supplier<List<EventResponse>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(read.get()).hasSize(ROWS);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            read.get();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new Measurement(nanos / 1e6 / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private record Measurement(double millis, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Searches bounded by partition retention, with the cutoff taken from the service clock
+ */
+@SpringBootTest(properties = "events.partitions.retention-months=2")
+@ActiveProfiles("h2")
+class EventRetentionTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 20, 12, 0);
+
+    @TestConfiguration
+    static class FixedClock {
+        @Bean
+        @Primary
+        Clock fixedClock() {
+            return Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+    }
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        eventService.clearCache();
+    }
+
+    @Test
+    void searchesNeverReachBeforeTheRetentionCutoff() {
+        List<EventRequest> requests = new ArrayList<>();
+        // Cutoff: the start of the month two months before March 2024
+        for (LocalDateTime timestamp : List.of(LocalDateTime.of(2023, 12, 31, 23, 59),
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 3, 1, 8, 0))) {
+            EventRequest request = new EventRequest();
+            request.setUserId(1L);
+            request.setEventType("VIEW");
+            request.setProductId(1L);
+            request.setCategory("books");
+            request.setTimestamp(timestamp);
+            requests.add(request);
+        }
+        eventService.createEventsBatch(requests);
+
+        assertThat(eventService.getEvents(null, null, "books", null, null, null, null, 10).getEvents())
+                .extracting(EventResponse::getTimestamp)
+                .containsExactly(LocalDateTime.of(2024, 3, 1, 8, 0), LocalDateTime.of(2024, 1, 1, 0, 0));
+        assertThat(eventService.getEvents(null, null, null, null, LocalDateTime.of(2023, 6, 1, 0, 0), null, null, 10)
+                .getEvents()).hasSize(2);
+        assertThat(eventService.getEvents(1L, null, null, null, null, null, null, 10).getEvents()).hasSize(2);
+    }
+}
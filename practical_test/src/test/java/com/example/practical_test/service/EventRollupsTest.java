@@ -0,0 +1,121 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rollup maintenance and date range summaries against PostgreSQL with the
+ * Flyway schema. Skipped when Docker is not available.
+ */
+@SpringBootTest(properties = "events.rollups.interval-ms=3600000")
+@Testcontainers(disabledWithoutDocker = true)
+class EventRollupsTest {
+    private static final String[] TYPES = {"VIEW", "ADD_TO_CART", "PURCHASE"};
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRollups rollups;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(30);
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE events, event_counts_hourly, event_counts_daily");
+        jdbcTemplate.update("UPDATE event_rollup_watermark SET rolled_up_to = ?", start);
+        // Moved back, which never happens outside tests
+        ReflectionTestUtils.setField(rollups, "knownWatermark", LocalDateTime.MIN);
+    }
+
+    @Test
+    void jobRollsUpCompleteHoursAndSummariesMatchTheRawEvents() {
+        createEvents(start, 30 * 60);
+
+        rollups.rollUp();
+
+        assertThat(rollups.watermark()).isAfterOrEqualTo(LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.HOURS));
+        assertSummaryMatchesRawEvents(start.plusMinutes(17), LocalDateTime.now(), null);
+        assertSummaryMatchesRawEvents(start.minusDays(1), start.plusHours(26).plusMinutes(3), "category-1");
+    }
+
+    @Test
+    void eventsWrittenBelowTheWatermarkAreAddedByTheWritePath() {
+        rollups.rollUp();
+        LocalDateTime watermark = rollups.watermark();
+
+        // Backfill below the watermark: the job will not roll these hours up again
+        createEvents(start.plusHours(2), 600);
+
+        assertThat(rollups.countHourly(start, watermark, null, null).values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(600);
+        assertSummaryMatchesRawEvents(start, watermark, null);
+    }
+
+    @Test
+    void eventsBelowAWatermarkThisNodeHasNotSeenAreAddedByTheWritePath() {
+        rollups.rollUp();
+        LocalDateTime watermark = rollups.watermark();
+        // As on a node whose last read was before another node's job moved the watermark
+        ReflectionTestUtils.setField(rollups, "knownWatermark", start);
+
+        createEvents(start.plusHours(2), 600);
+        createEvents(LocalDateTime.now().minusSeconds(5), 1);
+
+        assertThat(rollups.countHourly(start, watermark, null, null).values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(600);
+        assertSummaryMatchesRawEvents(start, watermark, null);
+    }
+
+    private void createEvents(LocalDateTime from, int count) {
+        List<EventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId((long) (i % 13));
+            request.setEventType(TYPES[i % TYPES.length]);
+            request.setProductId(i % 4 == 0 ? null : (long) (i % 7));
+            request.setCategory(i % 5 == 0 ? null : "category-" + (i % 3));
+            request.setTimestamp(from.plusMinutes(i).plusSeconds(i % 60));
+            requests.add(request);
+        }
+        eventService.createEventsBatch(requests);
+    }
+
+    private void assertSummaryMatchesRawEvents(LocalDateTime from, LocalDateTime to, String category) {
+        Map<EventType, Long> raw = new EnumMap<>(EventType.class);
+        jdbcTemplate.query("SELECT event_type, count(*) FROM events WHERE timestamp >= ? AND timestamp < ?"
+                        + (category != null ? " AND category = ?" : "") + " GROUP BY event_type",
+                row -> {
+                    raw.put(EventType.of(row.getInt(1)), row.getLong(2));
+                },
+                category != null ? new Object[] {from, to, category} : new Object[] {from, to});
+
+        assertThat(eventService.getEventSummary(category, null, from, to)).isEqualTo(raw);
+    }
+}
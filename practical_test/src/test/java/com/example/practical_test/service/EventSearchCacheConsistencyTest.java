@@ -0,0 +1,104 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventPage;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Randomized write/read sequences: every search page answered by EventService
+ * (first pages often from the cache) must equal the same slice of a fresh
+ * findEventsWithFilters result
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class EventSearchCacheConsistencyTest {
+    private static final String[] TYPES = {"VIEW", "ADD_TO_CART", "PURCHASE"};
+    private static final String[] CATEGORIES = {"books", "toys", null};
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 0, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    private final Random random = new Random(7);
+
+    @BeforeEach
+    void setUp() {
+        eventRepository.deleteAllInBatch();
+        eventService.clearCache();
+    }
+
+    @Test
+    void cachedResultsMatchDatabaseAfterRandomWrites() {
+        int cachedSearches = 0;
+        for (int step = 0; step < 1_000; step++) {
+            if (random.nextInt(4) == 0) {
+                if (random.nextBoolean()) {
+                    eventService.createEvent(randomRequest());
+                } else {
+                    List<EventRequest> batch = new ArrayList<>();
+                    for (int i = random.nextInt(5); i >= 0; i--) {
+                        batch.add(randomRequest());
+                    }
+                    eventService.createEventsBatch(batch);
+                }
+            } else {
+                Long userId = random.nextInt(3) == 0 ? null : (long) random.nextInt(3);
+                String eventType = random.nextInt(2) == 0 ? null : TYPES[random.nextInt(TYPES.length)];
+                String category = random.nextInt(2) == 0 ? null : CATEGORIES[random.nextInt(2)];
+                LocalDateTime from = random.nextInt(3) == 0 ? BASE.plusHours(random.nextInt(6)) : null;
+                LocalDateTime to = random.nextInt(3) == 0 ? BASE.plusHours(6 + random.nextInt(6)) : null;
+
+                int limit = random.nextBoolean() ? 5 : 50;
+
+                EventPage page = eventService.getEvents(userId, eventType, category, null, from, to, null, limit);
+                List<Long> expected = eventRepository
+                        .findEventsWithFilters(userId, EventType.parseFilter(eventType), category, null, from, to).stream()
+                        .map(EventResponse::getId)
+                        .toList();
+                assertThat(ids(page.getEvents())).as("search at step %d", step)
+                        .isEqualTo(expected.subList(0, Math.min(limit, expected.size())));
+                assertThat(page.getNextCursor() != null).isEqualTo(expected.size() > limit);
+                if (page.getNextCursor() != null) {
+                    EventPage next = eventService.getEvents(userId, eventType, category, null, from, to,
+                            page.getNextCursor(), limit);
+                    assertThat(ids(next.getEvents())).as("second page at step %d", step)
+                            .isEqualTo(expected.subList(limit, Math.min(2 * limit, expected.size())));
+                }
+                cachedSearches = Math.max(cachedSearches, eventService.getCacheSize());
+            }
+        }
+        assertThat(cachedSearches).isGreaterThan(10);
+    }
+
+    private EventRequest randomRequest() {
+        EventRequest request = new EventRequest();
+        request.setUserId((long) random.nextInt(3));
+        request.setEventType(TYPES[random.nextInt(TYPES.length)]);
+        request.setProductId((long) random.nextInt(5));
+        request.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        // Minute resolution so timestamp ties (ordered by id) are common
+        request.setTimestamp(BASE.plusMinutes(random.nextInt(12 * 60)));
+        return request;
+    }
+
+    private List<Long> ids(List<EventResponse> responses) {
+        return responses.stream().map(EventResponse::getId).toList();
+    }
+}
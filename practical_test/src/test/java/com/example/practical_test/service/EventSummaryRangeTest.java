@@ -0,0 +1,61 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.model.EventType;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Date range summaries without rollups (H2): counted from the events table
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class EventSummaryRangeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2023, 6, 1, 0, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void countsEventsInTheHalfOpenRange() {
+        List<EventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId(1L);
+            request.setEventType(i % 4 == 0 ? "PURCHASE" : "VIEW");
+            request.setProductId((long) (i % 2));
+            request.setCategory("books");
+            request.setTimestamp(BASE.plusHours(i));
+            requests.add(request);
+        }
+        eventService.createEventsBatch(requests);
+
+        assertThat(eventService.getEventSummary(null, null, BASE.plusHours(4), BASE.plusHours(12)))
+                .containsOnly(Map.entry(EventType.VIEW, 6L), Map.entry(EventType.PURCHASE, 2L));
+        assertThat(eventService.getEventSummary("books", 1L, BASE, BASE.plusDays(1)))
+                .containsOnly(Map.entry(EventType.VIEW, 12L));
+        assertThat(eventService.getEventSummary("toys", null, BASE, null)).isEmpty();
+        assertThatThrownBy(() -> eventService.getEventSummary(null, null, BASE, BASE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
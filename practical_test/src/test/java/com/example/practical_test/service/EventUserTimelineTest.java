@@ -0,0 +1,89 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventPage;
+import com.example.practical_test.dto.EventRequest;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User searches served from the in-memory user timelines (H2)
+ */
+@SpringBootTest(properties = "events.user-timelines.capacity=10")
+@ActiveProfiles("h2")
+class EventUserTimelineTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2023, 9, 1, 8, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        eventService.clearCache();
+    }
+
+    @Test
+    void searchesOfAUserAreServedFromTheTimelineAndSeeNewWrites() {
+        eventService.createEventsBatch(requests(501L, 6, BASE));
+        EventPage first = eventService.getEvents(501L, null, null, null, null, null, null, 4);
+        assertThat(first.getEvents()).hasSize(4);
+
+        // Rows deleted behind the service's back: later searches of the user never reach the database
+        eventRepository.deleteAllInBatch();
+        eventService.createEvent(requests(501L, 1, BASE.plusHours(1)).get(0));
+
+        List<EventResponse> all = eventService.getEvents(501L, null, null, null, null, null, null, 20).getEvents();
+        assertThat(all).hasSize(7);
+        assertThat(all.get(0).getTimestamp()).isEqualTo(BASE.plusHours(1));
+        assertThat(eventService.getEvents(501L, "PURCHASE", "books", null, BASE, BASE.plusMinutes(3), null, 20)
+                .getEvents()).extracting(EventResponse::getTimestamp).containsExactly(BASE.plusMinutes(3), BASE);
+        EventPage second = eventService.getEvents(501L, null, null, null, null, null, first.getNextCursor(), 4);
+        assertThat(second.getEvents()).extracting(EventResponse::getTimestamp)
+                .containsExactly(BASE.plusMinutes(1), BASE);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchesReachingPastTheTimelineGoToTheDatabase() {
+        eventService.createEventsBatch(requests(502L, 25, BASE));
+
+        // Only the latest 10 events are held; a page of 15 needs older ones
+        assertThat(eventService.getEvents(502L, null, null, null, null, null, null, 5).getEvents()).hasSize(5);
+        EventPage page = eventService.getEvents(502L, null, null, null, null, null, null, 15);
+        assertThat(page.getEvents()).hasSize(15);
+        assertThat(page.getEvents().get(14).getTimestamp()).isEqualTo(BASE.plusMinutes(10));
+        assertThat(eventService.getEvents(502L, null, null, null, null, null, page.getNextCursor(), 15).getEvents())
+                .hasSize(10);
+    }
+
+    /**
+     * Events of a user one minute apart from start, every third a PURCHASE
+     */
+    private static List<EventRequest> requests(long userId, int count, LocalDateTime start) {
+        List<EventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventRequest request = new EventRequest();
+            request.setUserId(userId);
+            request.setEventType(i % 3 == 0 ? "PURCHASE" : "VIEW");
+            request.setProductId(7L);
+            request.setCategory("books");
+            request.setTimestamp(start.plusMinutes(i));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.FunnelResponse;
+import com.example.practical_test.dto.FunnelStepsResponse;
+import com.example.practical_test.model.EventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class FunnelAnalyzerTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    private final FunnelAnalyzer analyzer = new FunnelAnalyzer(FunnelAnalyzer.GroupBy.PRODUCT);
+    private long nextId;
+
+    @Test
+    void countsEachUserOncePerStepAndIgnoresStepsOutOfOrder() {
+        // user 1 converts fully, with repeated steps
+        event(1, EventType.VIEW, 7, 0);
+        event(1, EventType.VIEW, 7, 5);
+        event(1, EventType.ADD_TO_CART, 7, 60);
+        event(1, EventType.ADD_TO_CART, 7, 70);
+        event(1, EventType.PURCHASE, 7, 180);
+        event(1, EventType.PURCHASE, 7, 200);
+        // user 2 adds to cart before viewing, then views: only the view counts
+        event(2, EventType.ADD_TO_CART, 7, 0);
+        event(2, EventType.VIEW, 7, 10);
+        event(2, EventType.PURCHASE, 7, 20);
+        // user 3 converts on another product
+        event(3, EventType.VIEW, 8, 0);
+        event(3, EventType.ADD_TO_CART, 8, 30);
+        event(3, EventType.PURCHASE, 8, 90);
+
+        FunnelResponse result = analyzer.result(10);
+
+        assertThat(result.getEventCount()).isEqualTo(12);
+        assertThat(result.getGroups()).extracting(FunnelStepsResponse::getKey).containsExactly("7", "8");
+        FunnelStepsResponse product7 = result.getGroups().get(0);
+        assertThat(product7.getViewed()).isEqualTo(2);
+        assertThat(product7.getAddedToCart()).isEqualTo(1);
+        assertThat(product7.getPurchased()).isEqualTo(1);
+        assertThat(product7.getViewToCartRate()).isEqualTo(0.5);
+        assertThat(product7.getCartToPurchaseRate()).isEqualTo(1.0);
+        assertThat(product7.getMedianViewToCartSeconds()).isCloseTo(60.0, withinPercentage(2));
+        assertThat(product7.getMedianCartToPurchaseSeconds()).isCloseTo(120.0, withinPercentage(2));
+
+        FunnelStepsResponse overall = result.getOverall();
+        assertThat(overall.getViewed()).isEqualTo(3);
+        assertThat(overall.getPurchased()).isEqualTo(2);
+        assertThat(overall.getViewToPurchaseRate()).isCloseTo(2 / 3.0, within(1e-9));
+        assertThat(overall.getMedianViewToCartSeconds()).isCloseTo(45.0, withinPercentage(2));
+    }
+
+    @Test
+    void histogramMediansStayWithinTheRelativeAccuracyInBoundedMemory() {
+        FunnelAnalyzer.DurationHistogram histogram = new FunnelAnalyzer.DurationHistogram();
+        Random random = new Random(42);
+        long[] millis = new long[100_001];
+        for (int i = 0; i < millis.length; i++) {
+            // Log-uniform from 1 ms to about 11 days, plus some zeros
+            millis[i] = i % 100 == 0 ? 0 : (long) Math.exp(random.nextDouble() * 20.7);
+            histogram.add(millis[i]);
+        }
+        Arrays.sort(millis);
+
+        assertThat(histogram.size()).isEqualTo(millis.length);
+        double accuracyPercent = FunnelAnalyzer.DurationHistogram.RELATIVE_ACCURACY * 100;
+        assertThat(histogram.medianSeconds()).isCloseTo(millis[millis.length / 2] / 1000.0, withinPercentage(accuracyPercent));
+        long[] counts = (long[]) ReflectionTestUtils.getField(histogram, "counts");
+        assertThat(counts.length).isLessThan(1_100);
+        assertThat(new FunnelAnalyzer.DurationHistogram().medianSeconds()).isNull();
+    }
+
+    @Test
+    void aNewUserStartsNewFunnels() {
+        event(1, EventType.VIEW, 7, 0);
+        event(2, EventType.ADD_TO_CART, 7, 10);
+        event(2, EventType.PURCHASE, 7, 20);
+
+        FunnelStepsResponse product7 = analyzer.result(10).getGroups().get(0);
+
+        assertThat(product7.getViewed()).isEqualTo(1);
+        assertThat(product7.getAddedToCart()).isZero();
+        assertThat(product7.getMedianViewToCartSeconds()).isNull();
+    }
+
+    @Test
+    void listsTheLargestFunnelsFirstUpToTheLimit() {
+        for (int user = 0; user < 5; user++) {
+            for (int product = 0; product <= user; product++) {
+                event(user, EventType.VIEW, product, 0);
+            }
+        }
+
+        FunnelResponse result = analyzer.result(2);
+
+        assertThat(result.getGroupCount()).isEqualTo(5);
+        assertThat(result.getGroups()).extracting(FunnelStepsResponse::getKey).containsExactly("0", "1");
+        assertThat(result.getGroups()).extracting(FunnelStepsResponse::getViewed).containsExactly(5L, 4L);
+    }
+
+    private void event(long userId, EventType type, long productId, int seconds) {
+        analyzer.accept(new EventResponse(++nextId, userId, type, productId, "books", BASE.plusSeconds(seconds)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.service.RollupRangePlan.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupRangePlanTest {
+    private static final LocalDateTime WATERMARK = LocalDateTime.of(2024, 3, 10, 14, 0);
+
+    @Test
+    void usesDaysThenHoursThenRawEventsAroundTheEdges() {
+        RollupRangePlan plan = RollupRangePlan.of(at(3, 1, 22, 30), at(3, 10, 16, 15), WATERMARK);
+
+        assertThat(plan.getDaily()).containsExactly(range(at(3, 2, 0, 0), at(3, 10, 0, 0)));
+        assertThat(plan.getHourly()).containsExactly(
+                range(at(3, 1, 23, 0), at(3, 2, 0, 0)),
+                range(at(3, 10, 0, 0), at(3, 10, 14, 0)));
+        // The raw tail starts at the watermark
+        assertThat(plan.getRaw()).containsExactly(
+                range(at(3, 1, 22, 30), at(3, 1, 23, 0)),
+                range(at(3, 10, 14, 0), at(3, 10, 16, 15)));
+    }
+
+    @Test
+    void alignedRangesBelowTheWatermarkNeedNoRawEvents() {
+        RollupRangePlan plan = RollupRangePlan.of(at(3, 1, 0, 0), at(3, 3, 6, 0), WATERMARK);
+
+        assertThat(plan.getDaily()).containsExactly(range(at(3, 1, 0, 0), at(3, 3, 0, 0)));
+        assertThat(plan.getHourly()).containsExactly(range(at(3, 3, 0, 0), at(3, 3, 6, 0)));
+        assertThat(plan.getRaw()).isEmpty();
+    }
+
+    @Test
+    void aPartialHourBeforeTheWatermarkMergesWithTheTail() {
+        RollupRangePlan plan = RollupRangePlan.of(at(3, 10, 13, 20), at(3, 10, 15, 0), WATERMARK);
+
+        assertThat(plan.getDaily()).isEmpty();
+        assertThat(plan.getHourly()).isEmpty();
+        assertThat(plan.getRaw()).containsExactly(range(at(3, 10, 13, 20), at(3, 10, 15, 0)));
+    }
+
+    @Test
+    void rangesAfterTheWatermarkAreRawOnly() {
+        RollupRangePlan plan = RollupRangePlan.of(at(3, 11, 0, 0), at(3, 12, 0, 0), WATERMARK);
+
+        assertThat(plan.getDaily()).isEmpty();
+        assertThat(plan.getHourly()).isEmpty();
+        assertThat(plan.getRaw()).containsExactly(range(at(3, 11, 0, 0), at(3, 12, 0, 0)));
+    }
+
+    @Test
+    void rangesInsideOneHourAreRawOnly() {
+        RollupRangePlan plan = RollupRangePlan.of(at(3, 5, 10, 5), at(3, 5, 10, 55), WATERMARK);
+
+        assertThat(plan.getHourly()).isEmpty();
+        assertThat(plan.getRaw()).containsExactly(range(at(3, 5, 10, 5), at(3, 5, 10, 55)));
+    }
+
+    private static LocalDateTime at(int month, int day, int hour, int minute) {
+        return LocalDateTime.of(2024, month, day, hour, minute);
+    }
+
+    private static Range range(LocalDateTime from, LocalDateTime to) {
+        return new Range(from, to);
+    }
+}
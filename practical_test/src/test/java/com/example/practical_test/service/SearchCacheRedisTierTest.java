@@ -0,0 +1,202 @@
+package com.example.practical_test.service;
+
+import com.example.practical_test.cache.SearchResultCodec;
+import com.example.practical_test.dto.EventResponse;
+import com.example.practical_test.dto.EventSearchKey;
+import com.example.practical_test.model.Event;
+import com.example.practical_test.model.EventType;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two tier instances, standing in for two nodes, against an in-process Redis server
+ */
+class SearchCacheRedisTierTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 10, 0, 0, 123_456_000);
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private SearchCacheRedisTier nodeA;
+    private SearchCacheRedisTier nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redis = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getBindPort()),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(500)).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        nodeA = startTier();
+        nodeB = startTier();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodeA.stop();
+        nodeB.stop();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void codecRoundTripsResultsIncludingNulls() {
+        List<EventResponse> results = List.of(
+                new EventResponse(2L, 7L, EventType.PURCHASE, 11L, "books", BASE),
+                new EventResponse(1L, null, null, null, null, null));
+
+        List<EventResponse> decoded = SearchResultCodec.decode(SearchResultCodec.encode(results));
+
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator().isEqualTo(results);
+    }
+
+    @Test
+    void resultsStoredByOneNodeAreServedToAnother() {
+        EventSearchKey key = new EventSearchKey(7L, EventType.VIEW, "books", null, null, null);
+        nodeA.put(key, nodeA.get(key), rows(3));
+
+        List<EventResponse> shared = nodeB.get(key).getResults();
+
+        assertThat(shared).extracting(EventResponse::getId).containsExactly(3L, 2L, 1L);
+        assertThat(nodeB.get(new EventSearchKey(7L, EventType.VIEW, "toys", null, null, null)).getResults()).isNull();
+    }
+
+    @Test
+    void writesInvalidateOnlyTheSearchesTheyCanChange() throws Exception {
+        EventSearchKey sameUser = new EventSearchKey(7L, null, null, null, null, null);
+        EventSearchKey otherUser = new EventSearchKey(8L, null, null, null, null, null);
+        EventSearchKey sameCategory = new EventSearchKey(null, EventType.PURCHASE, "books", null, null, null);
+        EventSearchKey otherCategory = new EventSearchKey(null, null, "toys", null, null, null);
+        EventSearchKey otherProduct = new EventSearchKey(null, null, "books", 12L, null, null);
+        EventSearchKey otherType = new EventSearchKey(null, EventType.PURCHASE, null, null, null, null);
+        EventSearchKey everything = new EventSearchKey(null, null, null, null, null, null);
+        List<EventSearchKey> keys = List.of(sameUser, otherUser, sameCategory, otherCategory, otherProduct,
+                otherType, everything);
+        for (EventSearchKey key : keys) {
+            nodeA.put(key, nodeA.get(key), rows(2));
+        }
+        // Loaded before the write, stored after it
+        EventSearchKey slowLoad = new EventSearchKey(7L, EventType.VIEW, null, null, null, null);
+        SearchCacheRedisTier.Lookup beforeWrite = nodeA.get(slowLoad);
+
+        nodeA.publishWrite(List.of(event(100L, 7L, EventType.VIEW, 11L, "books")));
+        assertThat(nodeA.awaitPublished(Duration.ofSeconds(10))).isTrue();
+        nodeA.put(slowLoad, beforeWrite, rows(1));
+
+        assertThat(nodeB.get(sameUser).getResults()).isNull();
+        assertThat(nodeB.get(sameCategory).getResults()).isNull();
+        assertThat(nodeB.get(everything).getResults()).isNull();
+        assertThat(nodeB.get(slowLoad).getResults()).isNull();
+        assertThat(nodeB.get(otherUser).getResults()).hasSize(2);
+        assertThat(nodeB.get(otherCategory).getResults()).hasSize(2);
+        assertThat(nodeB.get(otherProduct).getResults()).hasSize(2);
+        assertThat(nodeB.get(otherType).getResults()).hasSize(2);
+    }
+
+    @Test
+    void writesReachTheLocalCachesOfOtherNodes() throws Exception {
+        List<Event> received = new CopyOnWriteArrayList<>();
+        nodeB.setRemoteWriteListener(received::addAll);
+
+        nodeA.publishWrite(List.of(event(100L, 7L, EventType.VIEW, 11L, "books")));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(received).singleElement().satisfies(written -> {
+            assertThat(written.getId()).isEqualTo(100L);
+            assertThat(written.getTimestamp()).isEqualTo(BASE);
+        });
+    }
+
+    @Test
+    void clearInvalidatesEverySearch() throws Exception {
+        EventSearchKey user = new EventSearchKey(7L, null, null, null, null, null);
+        EventSearchKey category = new EventSearchKey(null, null, "toys", null, null, null);
+        nodeA.put(user, nodeA.get(user), rows(2));
+        nodeA.put(category, nodeA.get(category), rows(2));
+
+        nodeA.publishClear();
+        assertThat(nodeA.awaitPublished(Duration.ofSeconds(10))).isTrue();
+
+        assertThat(nodeB.get(user).getResults()).isNull();
+        assertThat(nodeB.get(category).getResults()).isNull();
+        assertThat(nodeA.get(user).getResults()).isNull();
+    }
+
+    @Test
+    void writesDoNotWaitForRedisAndBypassTheTierUntilItRecovers() throws Exception {
+        EventSearchKey key = new EventSearchKey(7L, null, null, null, null, null);
+        nodeA.put(key, nodeA.get(key), rows(2));
+        int port = redis.getBindPort();
+        redis.stop();
+
+        long start = System.nanoTime();
+        nodeA.publishWrite(List.of(event(100L, 7L, EventType.VIEW, 11L, "books")));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+        assertThat(nodeA.awaitPublished(Duration.ofSeconds(10))).isTrue();
+        assertThat(nodeA.getErrorCount()).isPositive();
+
+        // The write may not have reached Redis: its stale result must not be served once Redis is back
+        // Back on the same port, with its data lost
+        redis = RedisServer.newRedisServer(port).start();
+        long bypassed = nodeA.getBypassCount();
+        assertThat(nodeA.get(key).getResults()).isNull();
+        assertThat(nodeA.getBypassCount()).isEqualTo(bypassed + 1);
+        List<EventResponse> served = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (served == null && System.nanoTime() < deadline) {
+            assertThat(nodeA.awaitPublished(Duration.ofSeconds(10))).isTrue();
+            assertThat(nodeA.get(key).getResults()).isNull();
+            nodeA.put(key, nodeA.get(key), rows(1));
+            served = nodeA.get(key).getResults();
+            Thread.sleep(20);
+        }
+        // Once the epoch has moved on, results are stored and served again
+        assertThat(served).hasSize(1);
+    }
+
+    private SearchCacheRedisTier startTier() {
+        SearchCacheRedisTier tier = new SearchCacheRedisTier();
+        ReflectionTestUtils.setField(tier, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(tier, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(tier, "publishQueueCapacity", 100);
+        tier.start();
+        return tier;
+    }
+
+    private static Event event(Long id, Long userId, EventType type, Long productId, String category) {
+        Event event = new Event();
+        event.setId(id);
+        event.setUserId(userId);
+        event.setEventType(type);
+        event.setProductId(productId);
+        event.setCategory(category);
+        event.setTimestamp(BASE);
+        return event;
+    }
+
+    private static List<EventResponse> rows(int count) {
+        List<EventResponse> rows = new ArrayList<>();
+        for (int i = count; i > 0; i--) {
+            rows.add(new EventResponse((long) i, 7L, EventType.VIEW, 11L, "books", BASE.plusSeconds(i)));
+        }
+        return rows;
+    }
+}